@@ -0,0 +1,102 @@
+package com.mbrsv.tq.benchmarks;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.mbrsv.tq.BaseActor;
+import com.mbrsv.tq.CollisionWorld;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Finding touching pairs among moving NPC-sized actors each tick: every pair tested with
+// overlaps(), against CollisionWorld's incrementally sorted sweep. Both move the actors the
+// same way first, at a density that keeps a few percent of them in contact.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    private static final float STEP = 1f / 60;
+
+    @Param({ "256", "2048" })
+    public int actors;
+
+    @Param({ "pairwise", "sweep" })
+    public String method;
+
+    private BaseActor[] bodies;
+    private float[] velocityX;
+    private float[] velocityY;
+    private float size;
+    private CollisionWorld collision;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Headless.init();
+        RandomXS128 random = new RandomXS128(11);
+        //about 16 actor areas of room per actor
+        size = (float) Math.sqrt(actors * 16f) * 32;
+        bodies = new BaseActor[actors];
+        velocityX = new float[actors];
+        velocityY = new float[actors];
+        collision = new CollisionWorld();
+        for (int i = 0; i < actors; i++) {
+            BaseActor body = new BaseActor();
+            body.setSize(32, 32);
+            body.setEllipseBoundary();
+            body.setPosition(random.nextFloat() * (size - 32), random.nextFloat() * (size - 32));
+            bodies[i] = body;
+            velocityX[i] = (random.nextFloat() - 0.5f) * 400;
+            velocityY[i] = (random.nextFloat() - 0.5f) * 400;
+            collision.add(body, 1, 1);
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        move();
+        if (method.equals("sweep")) {
+            collision.update();
+            return collision.getPairCount();
+        }
+        int pairs = 0;
+        for (int i = 0; i < actors; i++) {
+            for (int j = i + 1; j < actors; j++) {
+                if (bodies[i].overlaps(bodies[j], false)) {
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+
+    //straight lines, bouncing off the edges of the area
+    private void move() {
+        for (int i = 0; i < actors; i++) {
+            BaseActor body = bodies[i];
+            float x = body.getX() + velocityX[i] * STEP;
+            float y = body.getY() + velocityY[i] * STEP;
+            if (x < 0 || x > size - 32) {
+                velocityX[i] = -velocityX[i];
+            }
+            if (y < 0 || y > size - 32) {
+                velocityY[i] = -velocityY[i];
+            }
+            body.setPosition(x, y);
+        }
+    }
+}
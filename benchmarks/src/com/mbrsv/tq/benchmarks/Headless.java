@@ -0,0 +1,75 @@
+package com.mbrsv.tq.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.math.RandomXS128;
+import com.mbrsv.tq.BaseActor;
+import com.mbrsv.tq.GameWorld;
+import com.mbrsv.tq.LevelData;
+import com.mbrsv.tq.PhysicsActor;
+import com.mbrsv.tq.WallMerger;
+
+// Headless libGDX setup shared by the benchmarks: files and natives without a window or GL
+public class Headless {
+
+    public static synchronized void init() {
+        if (Gdx.app != null) {
+            return;
+        }
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = -1;
+        new HeadlessApplication(new ApplicationAdapter() {}, config);
+    }
+
+    // Loads a level by name: "generated" builds a random one, anything else is a TMX
+    // or compiled .lvl asset. Walls are merged, as GameScreen does.
+    public static LevelData loadLevel(String name, int repeat) {
+        LevelData level;
+        if (name.equals("generated")) {
+            level = LevelData.generate(30 * repeat, 30 * repeat, 32,
+                    15 * repeat * repeat, 36 * repeat * repeat, 42);
+        } else {
+            level = readLevel(name).repeat(repeat);
+        }
+        WallMerger.merge(level, true);
+        return level;
+    }
+
+    public static LevelData readLevel(String name) {
+        if (name.endsWith(".lvl")) {
+            return LevelData.read(Gdx.files.internal(name));
+        }
+        return LevelData.fromTmx(Gdx.files.internal(name));
+    }
+
+    // Same player and coin geometry as GameScreen, without textures or animations
+    public static GameWorld createWorld(LevelData level) {
+        PhysicsActor player = new PhysicsActor();
+        player.setSize(48, 48);
+        player.setEllipseBoundary();
+
+        BaseActor coin = new BaseActor();
+        coin.setSize(32, 32);
+        coin.setEllipseBoundary();
+
+        return new GameWorld(level, player, coin);
+    }
+
+    // Adds NPC-sized movers at random spots, heading in random directions
+    public static void addWanderers(GameWorld world, int count, long seed) {
+        RandomXS128 random = new RandomXS128(seed);
+        LevelData level = world.getLevel();
+        PhysicsActor prefab = new PhysicsActor();
+        prefab.setSize(32, 32);
+        prefab.setEllipseBoundary();
+        for (int i = 0; i < count; i++) {
+            PhysicsActor wanderer = prefab.clone();
+            wanderer.setPosition(random.nextFloat() * (level.getWidth() - 32),
+                    random.nextFloat() * (level.getHeight() - 32));
+            wanderer.setVelocityAS(random.nextFloat() * 360, 100 + random.nextFloat() * 200);
+            world.addMover(wanderer);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.mbrsv.tq.benchmarks;
+
+import com.mbrsv.tq.LevelData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Reading the same level from its TMX XML and from the compiled binary file.
+// With -prof gc this also shows the transient allocation of each path.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LevelLoadBenchmark {
+
+    @Param({ "map01.tmx", "map01.lvl" })
+    public String file;
+
+    @Setup
+    public void setUp() {
+        Headless.init();
+    }
+
+    @Benchmark
+    public LevelData load() {
+        return Headless.readLevel(file);
+    }
+}
@@ -0,0 +1,63 @@
+package com.mbrsv.tq.benchmarks;
+
+import com.mbrsv.tq.GameWorld;
+import com.mbrsv.tq.JobScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// One gameplay tick with many wandering movers, integrated and collided on one thread
+// or split across the job scheduler's workers.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+
+    private static final float STEP = 1f / 60;
+
+    @Param({ "256", "4096" })
+    public int movers;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private GameWorld world;
+    private JobScheduler jobs;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Headless.init();
+        world = Headless.createWorld(Headless.loadLevel("generated", 8));
+        Headless.addWanderers(world, movers, 7);
+        jobs = new JobScheduler();
+        jobs.setParallel(parallel);
+        world.setJobScheduler(jobs);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        jobs.dispose();
+    }
+
+    @Benchmark
+    public int tick() {
+        world.step(STEP);
+        return world.getCoinsCollected();
+    }
+}
@@ -0,0 +1,96 @@
+package com.mbrsv.tq.benchmarks;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Rectangle;
+import com.mbrsv.tq.BaseActor;
+import com.mbrsv.tq.GameScreen;
+import com.mbrsv.tq.GameWorld;
+import com.mbrsv.tq.InputLog;
+import com.mbrsv.tq.JobScheduler;
+import com.mbrsv.tq.LevelChunkSource;
+import com.mbrsv.tq.LevelData;
+import com.mbrsv.tq.PhysicsActor;
+import com.mbrsv.tq.WallMerger;
+import com.mbrsv.tq.WorldStreamer;
+
+import java.io.File;
+
+// Replays sessions recorded in GameScreen (F5) headlessly and as fast as possible, checking the
+// recorded checksums along the way. Repeated loops make a soak test; the tick rate is the
+// gameplay throughput. Exits with 1 on the first divergence.
+// Usage: ReplayRunner <session.tqin> [loops] [serial]
+public class ReplayRunner {
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayRunner <session.tqin> [loops] [serial]");
+            System.exit(2);
+        }
+        Headless.init();
+        InputLog log = InputLog.read(new FileHandle(new File(args[0])));
+        int loops = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        JobScheduler jobs = new JobScheduler();
+        jobs.setParallel(!(args.length > 2 && args[2].equals("serial")));
+
+        //the same level GameScreen played, merged the same way
+        LevelData level = Headless.readLevel(log.getLevel());
+        WallMerger.merge(level, true);
+        System.out.println(log.getLevel() + ": " + log.getTickCount() + " ticks in "
+                + log.getRunCount() + " input runs, " + jobs.getThreads() + " threads");
+
+        for (int loop = 0; loop < loops; loop++) {
+            long start = System.nanoTime();
+            int divergedAt = replay(level, log, jobs);
+            long elapsed = System.nanoTime() - start;
+            if (divergedAt != -1) {
+                System.out.println("loop " + loop + ": checksum mismatch after tick " + divergedAt
+                        + " (last match at tick " + (divergedAt - log.getChecksumInterval()) + ")");
+                jobs.dispose();
+                System.exit(1);
+            }
+            System.out.println("loop " + loop + ": " + (elapsed / 1000000) + " ms, "
+                    + (long) (log.getTickCount() * 1e9 / elapsed) + " ticks/s");
+        }
+        jobs.dispose();
+        System.exit(0);
+    }
+
+    // Runs the whole log on a fresh world; returns the tick whose checksum differs, or -1
+    public static int replay(LevelData level, InputLog log, JobScheduler jobs) {
+        GameWorld world = createWorld(level);
+        world.setJobScheduler(jobs);
+        if (log.getStart() != null) {
+            //the session began from a loaded save game
+            world.restore(log.getStart());
+        }
+        float stepTime = log.getStepTime();
+        log.rewind();
+        for (int tick = 1; log.hasNext(); tick++) {
+            world.setPlayerInput(log.next());
+            world.step(stepTime);
+            if (log.hasChecksum(tick) && world.checksum() != log.getChecksum(tick)) {
+                return tick;
+            }
+        }
+        return -1;
+    }
+
+    // Like Headless.createWorld, but with the walls split into chunks as GameScreen streams
+    // them; all chunks stay resident, which gives the player the same walls
+    private static GameWorld createWorld(LevelData level) {
+        PhysicsActor player = new PhysicsActor();
+        player.setSize(48, 48);
+        player.setEllipseBoundary();
+
+        BaseActor coin = new BaseActor();
+        coin.setSize(32, 32);
+        coin.setEllipseBoundary();
+
+        GameWorld world = GameWorld.streamed(level, player, coin);
+        WorldStreamer streamer = new WorldStreamer(world,
+                new LevelChunkSource(level, GameScreen.chunkTiles), GameScreen.chunkTiles);
+        streamer.preload(new Rectangle(0, 0, level.getWidth(), level.getHeight()));
+        streamer.dispose();
+        return world;
+    }
+}
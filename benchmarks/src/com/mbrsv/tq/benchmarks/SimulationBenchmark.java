@@ -0,0 +1,65 @@
+package com.mbrsv.tq.benchmarks;
+
+import com.mbrsv.tq.GameWorld;
+import com.mbrsv.tq.PhysicsActor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// One gameplay tick (actor movement, wall resolution, coin pickup) per operation.
+// The level is repeat x repeat copies of the base map, so entity counts grow with repeat^2.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+
+    private static final float STEP = 1f / 60;
+    private static final float SPEED = 500;
+
+    @Param({ "generated", "map01.tmx" })
+    public String level;
+
+    @Param({ "1", "4", "16" })
+    public int repeat;
+
+    private GameWorld world;
+    private PhysicsActor player;
+    private int tick;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Headless.init();
+        world = Headless.createWorld(Headless.loadLevel(level, repeat));
+        player = world.getPlayer();
+        tick = 0;
+    }
+
+    @Benchmark
+    public int tick() {
+        //walk a square: right, up, left, down, one second each
+        switch ((tick / 60) % 4) {
+            case 0: player.setVelocityXY(SPEED, 0); break;
+            case 1: player.setVelocityXY(0, SPEED); break;
+            case 2: player.setVelocityXY(-SPEED, 0); break;
+            default: player.setVelocityXY(0, -SPEED); break;
+        }
+        tick++;
+        world.step(STEP);
+        return world.getCoinsCollected();
+    }
+}
@@ -0,0 +1,83 @@
+package com.mbrsv.tq.benchmarks;
+
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.mbrsv.tq.ActorList;
+import com.mbrsv.tq.ActorPool;
+import com.mbrsv.tq.BaseActor;
+import com.mbrsv.tq.PhysicsActor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Spawns a wave of projectiles, lets them fly one step and destroys them, per operation.
+// With -prof gc, "pooled" should report no allocation per operation once warm.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+
+    private static final float STEP = 1f / 60;
+
+    @Param({ "clone", "pooled" })
+    public String spawn;
+
+    @Param({ "16", "256" })
+    public int wave;
+
+    private PhysicsActor prefab;
+    private ActorPool<PhysicsActor> pool;
+    private Group root;
+    private ActorList<PhysicsActor> projectiles;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        prefab = new PhysicsActor();
+        prefab.setSize(16, 16);
+        prefab.setOriginCenter();
+        prefab.setEllipseBoundary();
+        prefab.setVelocityXY(400, 0);
+
+        pool = new ActorPool<PhysicsActor>(prefab, wave, wave);
+        pool.fill(wave);
+        root = new Group();
+        projectiles = new ActorList<PhysicsActor>();
+    }
+
+    @Benchmark
+    public int spawnAndDestroy() {
+        boolean pooled = spawn.equals("pooled");
+        for (int i = 0; i < wave; i++) {
+            PhysicsActor projectile;
+            if (pooled) {
+                projectile = pool.spawn(i, 0);
+            } else {
+                projectile = prefab.clone();
+                projectile.setPosition(i, 0);
+            }
+            root.addActor(projectile);
+            projectiles.add(projectile);
+        }
+        root.act(STEP);
+        int count = projectiles.size();
+        for (int i = 0; i < count; i++) {
+            projectiles.get(i).destroy();
+        }
+        BaseActor.flushDestroyed();
+        return count;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.utils.IntIntMap;
+
+// Gameplay actions as bits, decoupled from the keys that trigger them. Keys are tracked from
+// input events rather than polled, and a key tapped between two ticks still counts for the
+// next tick. The sampled masks are all the simulation sees of the player, so recording them
+// (InputLog) is enough to replay a session.
+public class ActionInput {
+
+    public static final int LEFT = 1;
+    public static final int RIGHT = 2;
+    public static final int UP = 4;
+    public static final int DOWN = 8;
+
+    private final IntIntMap bindings;
+    private int held;
+    //pressed since the last sample, even if released again
+    private int tapped;
+
+    public ActionInput() {
+        bindings = new IntIntMap();
+        bind(Keys.LEFT, LEFT);
+        bind(Keys.RIGHT, RIGHT);
+        bind(Keys.UP, UP);
+        bind(Keys.DOWN, DOWN);
+        held = 0;
+        tapped = 0;
+    }
+
+    public void bind(int keycode, int action) {
+        bindings.put(keycode, action);
+    }
+
+    // Returns true if the key is bound, so the InputProcessor can report it handled
+    public boolean keyDown(int keycode) {
+        int action = bindings.get(keycode, 0);
+        held |= action;
+        tapped |= action;
+        return action != 0;
+    }
+
+    public boolean keyUp(int keycode) {
+        int action = bindings.get(keycode, 0);
+        held &= ~action;
+        return action != 0;
+    }
+
+    // The actions for the next tick; call once per tick
+    public int sample() {
+        int actions = held | tapped;
+        tapped = 0;
+        return actions;
+    }
+
+    // Forgets held keys, e.g. when the screen loses input
+    public void clear() {
+        held = 0;
+        tapped = 0;
+    }
+}
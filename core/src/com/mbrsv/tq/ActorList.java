@@ -0,0 +1,49 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.utils.Array;
+
+// Unordered list of actors with O(1) removal.
+// Each actor remembers its index here, so removal swaps the last actor into its slot
+// instead of searching and shifting. Destroyed actors leave at the end of the tick.
+public class ActorList<T extends BaseActor> {
+
+    private final Array<T> actors;
+
+    public ActorList() {
+        actors = new Array<T>(false, 16);
+    }
+
+    public void add(T actor) {
+        if (actor.ownerList != null) {
+            actor.ownerList.remove(actor);
+        }
+        actor.ownerList = this;
+        actor.listIndex = actors.size;
+        actors.add(actor);
+    }
+
+    public void remove(BaseActor actor) {
+        if (actor.ownerList != this) {
+            return;
+        }
+        int index = actor.listIndex;
+        T last = actors.pop();
+        if (last != actor) {
+            actors.set(index, last);
+            last.listIndex = index;
+        }
+        actor.ownerList = null;
+        actor.listIndex = -1;
+    }
+
+    public T get(int index) { return actors.get(index); }
+    public int size() { return actors.size; }
+
+    public void clear() {
+        for (int i = 0; i < actors.size; i++) {
+            actors.get(i).ownerList = null;
+            actors.get(i).listIndex = -1;
+        }
+        actors.clear();
+    }
+}
@@ -0,0 +1,52 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.utils.Pool;
+
+// Pool of actors spawned from a prefab.
+// Spawned actors are copies of the prefab and share its texture region source, bounding
+// polygon vertices and animations; destroy() hands them back here at the end of the tick
+// (see BaseActor.flushDestroyed), so once the pool is warm spawning allocates nothing.
+public class ActorPool<T extends BaseActor> extends Pool<T> {
+
+    private final T prefab;
+
+    public ActorPool(T prefab) {
+        this(prefab, 16, Integer.MAX_VALUE);
+    }
+
+    public ActorPool(T prefab, int initialCapacity, int max) {
+        super(initialCapacity, max);
+        this.prefab = prefab;
+    }
+
+    public T getPrefab() {
+        return prefab;
+    }
+
+    // Takes a free actor (or makes one) and sets it up as a copy of the prefab at (x, y)
+    public T spawn(float x, float y) {
+        T actor = obtain();
+        actor.copy(prefab);
+        actor.setPosition(x, y);
+        actor.pool = this;
+        return actor;
+    }
+
+    // Creates free actors up front, so the first spawns do not allocate either
+    public void fill(int count) {
+        for (int i = 0; i < count; i++) {
+            free(newObject());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected T newObject() {
+        return (T) prefab.clone();
+    }
+
+    @SuppressWarnings("unchecked")
+    void recycle(BaseActor actor) {
+        free((T) actor);
+    }
+}
@@ -5,60 +5,96 @@ import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
-import java.util.HashMap;
-
 public class AnimatedActor extends BaseActor {
 
     private float elapsedTime;
     private Animation activeAnimation;
-    private String activeAnimationName;
-    private HashMap<String, Animation> animationStorage;
+    private int activeAnimationIndex;
+    //shared with every copy of this actor
+    private AnimationSet animations;
     private boolean pauseAnimation;
+    //key frame currently in textureRegion, so draw only changes it on a new frame
+    private int drawnFrame;
 
     public AnimatedActor() {
         super();
         elapsedTime = 0;
         activeAnimation = null;
-        activeAnimationName = null;
-        animationStorage = new HashMap<String, Animation>();
+        activeAnimationIndex = -1;
+        animations = new AnimationSet();
         pauseAnimation = false;
+        drawnFrame = -1;
     }
 
-    public void storeAnimation(String name, Animation animation) {
-        animationStorage.put(name, animation);
-        if (activeAnimationName == null) {
-            setActiveAnimation(name);
+    // Adds the animation to this actor's set and returns its index for setActiveAnimation(int)
+    public int storeAnimation(String name, Animation animation) {
+        int index = animations.add(name, animation);
+        if (activeAnimationIndex == -1) {
+            setActiveAnimation(index);
+        } else if (index == activeAnimationIndex) {
+            activeAnimation = animation;
+            drawnFrame = -1;
         }
+        return index;
     }
 
-    public void storeAnimation(String name, Texture texture) {
+    public int storeAnimation(String name, Texture texture) {
         TextureRegion textureRegion = new TextureRegion(texture);
         TextureRegion[] frames = { textureRegion };
         Animation animation = new Animation(1.0f, frames);
-        storeAnimation(name, animation);
+        return storeAnimation(name, animation);
     }
 
-    public void setActiveAnimation(String name) {
-        if (!animationStorage.containsKey(name)) {
-            System.out.println("No animation: " + name);
-            return;
+    // Plays animations from a set registered elsewhere, e.g. one set for a whole kind of NPC
+    public void setAnimationSet(AnimationSet set) {
+        animations = set;
+        activeAnimation = null;
+        activeAnimationIndex = -1;
+        if (set.size() > 0) {
+            setActiveAnimation(0);
         }
-        if (name.equals(activeAnimationName)) {
+    }
+
+    public AnimationSet getAnimationSet() {
+        return animations;
+    }
+
+    public void setActiveAnimation(int index) {
+        if (index == activeAnimationIndex) {
             return; //already playing, no need to change
         }
-        activeAnimationName = name;
-        activeAnimation = animationStorage.get(name);
+        if (index < 0 || index >= animations.size()) {
+            System.out.println("No animation: " + index);
+            return;
+        }
+        activeAnimationIndex = index;
+        activeAnimation = animations.get(index);
         elapsedTime = 0;
+        drawnFrame = -1;
         //if width of height not set, then set them
         if (getWidth() == 0 || getHeight() == 0) {
-            Texture texture = activeAnimation.getKeyFrame(0).getTexture();
-            setWidth(texture.getWidth());
-            setHeight(texture.getHeight());
+            TextureRegion frame = activeAnimation.getKeyFrame(0);
+            setWidth(frame.getRegionWidth());
+            setHeight(frame.getRegionHeight());
         }
     }
 
+    // Looks the name up in the set; keep the index from storeAnimation for per-frame switching
+    public void setActiveAnimation(String name) {
+        int index = animations.indexOf(name);
+        if (index == -1) {
+            System.out.println("No animation: " + name);
+            return;
+        }
+        setActiveAnimation(index);
+    }
+
+    public int getActiveAnimation() {
+        return activeAnimationIndex;
+    }
+
     public String getActiveAnimationName() {
-        return activeAnimationName;
+        return activeAnimationIndex == -1 ? null : animations.getName(activeAnimationIndex);
     }
 
     public void pauseAnimation() {
@@ -69,6 +105,24 @@ public class AnimatedActor extends BaseActor {
         pauseAnimation = false;
     }
 
+    public boolean isAnimationPaused() {
+        return pauseAnimation;
+    }
+
+    // Whether the actor looks different from frame to frame
+    public boolean isAnimating() {
+        return activeAnimation != null && !pauseAnimation;
+    }
+
+    // Time into the active animation, e.g. for snapshots
+    public float getAnimationTime() {
+        return elapsedTime;
+    }
+
+    public void setAnimationTime(float time) {
+        elapsedTime = time;
+    }
+
     public void setAnimationFrame(int n) {
         elapsedTime = n * activeAnimation.getFrameDuration();
     }
@@ -83,17 +137,35 @@ public class AnimatedActor extends BaseActor {
 
     @Override
     public void draw(Batch batch, float parentAlpha) {
-        textureRegion.setRegion(activeAnimation.getKeyFrame(elapsedTime));
+        int frame = activeAnimation.getKeyFrameIndex(elapsedTime);
+        if (frame != drawnFrame) {
+            textureRegion.setRegion(activeAnimation.getKeyFrames()[frame]);
+            drawnFrame = frame;
+        }
         super.draw(batch, parentAlpha);
     }
 
-    public void copy(AnimatedActor original) {
+    // Animations are shared with the original, not copied
+    @Override
+    public void copy(BaseActor original) {
         super.copy(original);
+        drawnFrame = -1;
+        if (!(original instanceof AnimatedActor)) {
+            return;
+        }
+        AnimatedActor animated = (AnimatedActor) original;
         this.elapsedTime = 0;
-        this.animationStorage = original.animationStorage;
-        this.activeAnimationName = new String(original.activeAnimationName);
-        this.activeAnimation = this.animationStorage.get(this.activeAnimationName);
+        this.animations = animated.animations;
+        this.activeAnimationIndex = animated.activeAnimationIndex;
+        this.activeAnimation = animated.activeAnimation;
+        this.pauseAnimation = animated.pauseAnimation;
+    }
 
+    @Override
+    public void reset() {
+        super.reset();
+        elapsedTime = 0;
+        pauseAnimation = false;
     }
 
     @Override
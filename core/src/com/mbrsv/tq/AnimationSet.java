@@ -0,0 +1,39 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.utils.Array;
+
+// Animations registered once under a name and an index, shared by every actor that plays them.
+// Actors switch by index, so changing or keeping the state never hashes or compares strings;
+// names are only looked up when setting things up.
+public class AnimationSet {
+
+    private final Array<Animation> animations;
+    private final Array<String> names;
+
+    public AnimationSet() {
+        animations = new Array<Animation>();
+        names = new Array<String>();
+    }
+
+    // Adds the animation, or replaces the one with the same name; returns its index
+    public int add(String name, Animation animation) {
+        int index = indexOf(name);
+        if (index >= 0) {
+            animations.set(index, animation);
+            return index;
+        }
+        animations.add(animation);
+        names.add(name);
+        return animations.size - 1;
+    }
+
+    // Index of the named animation, or -1
+    public int indexOf(String name) {
+        return names.indexOf(name, false);
+    }
+
+    public Animation get(int index) { return animations.get(index); }
+    public String getName(int index) { return names.get(index); }
+    public int size() { return animations.size; }
+}
@@ -0,0 +1,149 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+// Per-owner view of the game's shared AssetManager.
+// Each file is referenced once per cache, so the manager's reference count equals the number
+// of owners (usually screens) using it; dispose() releases this owner's references and the
+// manager frees the asset when nobody else holds it.
+public class AssetCache implements Disposable {
+
+    private final AssetManager manager;
+    private final Array<String> acquired;
+    private final ObjectMap<String, TextureRegion> regions;
+    private final ObjectMap<String, TextureRegion[]> frames;
+    private final TextureParameter textureParameter;
+    private String atlasFileName;
+
+    public AssetCache(AssetManager manager) {
+        this.manager = manager;
+        acquired = new Array<String>();
+        regions = new ObjectMap<String, TextureRegion>();
+        frames = new ObjectMap<String, TextureRegion[]>();
+        textureParameter = new TextureParameter();
+        textureParameter.minFilter = TextureFilter.Linear;
+        textureParameter.magFilter = TextureFilter.Linear;
+        atlasFileName = null;
+    }
+
+    // Regions are looked up in this atlas first (by file name without extension),
+    // so actors share one texture; files missing from the atlas are loaded on their own
+    public void setAtlas(String fileName) {
+        atlasFileName = fileName;
+        regions.clear();
+        frames.clear();
+    }
+
+    public AssetManager getManager() {
+        return manager;
+    }
+
+    // Returns the loaded asset, loading it synchronously on first use
+    public <T> T get(String fileName, Class<T> type) {
+        acquire(fileName, type, null);
+        return manager.get(fileName, type);
+    }
+
+    public Texture getTexture(String fileName) {
+        acquire(fileName, Texture.class, textureParameter);
+        return manager.get(fileName, Texture.class);
+    }
+
+    // Region for a whole image file, shared by every actor that uses it
+    public TextureRegion getRegion(String fileName) {
+        TextureRegion region = regions.get(fileName);
+        if (region == null) {
+            if (atlasFileName != null) {
+                int dot = fileName.lastIndexOf('.');
+                String name = dot < 0 ? fileName : fileName.substring(0, dot);
+                region = get(atlasFileName, TextureAtlas.class).findRegion(name);
+            }
+            if (region == null) {
+                region = new TextureRegion(getTexture(fileName));
+            }
+            regions.put(fileName, region);
+        }
+        return region;
+    }
+
+    // Sprite sheet split into frames, row by row; shared by every animation that uses this file
+    public TextureRegion[] getFrames(String fileName, int frameCols, int frameRows) {
+        String key = fileName + ":" + frameCols + "x" + frameRows;
+        TextureRegion[] result = frames.get(key);
+        if (result == null) {
+            TextureRegion sheet = getRegion(fileName);
+            int frameWidth = sheet.getRegionWidth() / frameCols;
+            int frameHeight = sheet.getRegionHeight() / frameRows;
+
+            TextureRegion[][] temp = sheet.split(frameWidth, frameHeight);
+            result = new TextureRegion[frameCols * frameRows];
+
+            int index = 0;
+            for (int i = 0; i < frameRows; i++) {
+                for (int j = 0; j < frameCols; j++) {
+                    result[index] = temp[i][j];
+                    index++;
+                }
+            }
+            frames.put(key, result);
+        }
+        return result;
+    }
+
+    // Queues an asset for asynchronous loading; call update() until it returns true
+    public <T> void queue(String fileName, Class<T> type) {
+        if (!acquired.contains(fileName, false)) {
+            manager.load(fileName, type);
+            acquired.add(fileName);
+        }
+    }
+
+    public void queueTexture(String fileName) {
+        if (!acquired.contains(fileName, false)) {
+            manager.load(fileName, Texture.class, textureParameter);
+            acquired.add(fileName);
+        }
+    }
+
+    // Advances queued loading by one step; returns true once everything is loaded
+    public boolean update() {
+        return manager.update();
+    }
+
+    public float getProgress() {
+        return manager.getProgress();
+    }
+
+    private <T> void acquire(String fileName, Class<T> type, AssetLoaderParameters<T> parameter) {
+        if (!acquired.contains(fileName, false)) {
+            manager.load(fileName, type, parameter);
+            manager.finishLoading();
+            acquired.add(fileName);
+        }
+    }
+
+    public boolean isAcquired(String fileName) {
+        return acquired.contains(fileName, false);
+    }
+
+    @Override
+    public void dispose() {
+        for (String fileName : acquired) {
+            if (manager.isLoaded(fileName)) {
+                manager.unload(fileName);
+            }
+        }
+        acquired.clear();
+        regions.clear();
+        frames.clear();
+    }
+}
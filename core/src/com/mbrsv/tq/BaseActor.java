@@ -7,32 +7,148 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Intersector;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.SnapshotArray;
 
-import java.util.ArrayList;
+public class BaseActor extends Group implements Pool.Poolable {
 
-public class BaseActor extends Group {
+    // Shape of the bounding polygon; collision code uses it to pick a cheaper narrow phase
+    // than polygon SAT where the shape allows (see SolidGrid)
+    public enum BoundaryType { RECTANGLE, ELLIPSE, POLYGON }
 
     public TextureRegion textureRegion;
     public Polygon boundingPolygon;
-    public ArrayList<? extends BaseActor> parentList;
+    private BoundaryType boundaryType;
+    //list this actor belongs to and its index there, for O(1) removal
+    ActorList<? extends BaseActor> ownerList;
+    int listIndex;
+    //pool that spawned this actor; it gets the actor back once it is destroyed
+    ActorPool<? extends BaseActor> pool;
+    //collision world this actor is a body of; destroyed actors leave it at the end of the tick
+    CollisionWorld collisionWorld;
+    private boolean dead;
+
+    //actors destroyed during the current tick; removed together by flushDestroyed()
+    private static final Array<BaseActor> destroyQueue = new Array<BaseActor>(false, 16);
+    private static final Array<Group> dirtyParents = new Array<Group>(false, 4);
+
+    //collision scratch shared by all actors; one per thread so overlaps() never allocates
+    private static final ThreadLocal<Intersector.MinimumTranslationVector> scratchMtv =
+            new ThreadLocal<Intersector.MinimumTranslationVector>() {
+                @Override
+                protected Intersector.MinimumTranslationVector initialValue() {
+                    return new Intersector.MinimumTranslationVector();
+                }
+            };
+
+    //world-space bounds, recomputed only when the transform differs from the cached one
+    private final Rectangle boundingRectangle;
+    private float boundaryX;
+    private float boundaryY;
+    private float boundaryRotation;
+    private boolean boundaryDirty;
+    private boolean boundaryFrozen;
+
+    //transform at the previous simulation step, for interpolated drawing
+    private float previousX;
+    private float previousY;
+    private float previousRotation;
+    private boolean hasPreviousState;
+    private float simulatedX;
+    private float simulatedY;
+    private float simulatedRotation;
+    private boolean interpolating;
 
     public BaseActor() {
         super();
         textureRegion = new TextureRegion();
         boundingPolygon = null;
-        parentList = null;
+        boundaryType = BoundaryType.POLYGON;
+        ownerList = null;
+        listIndex = -1;
+        pool = null;
+        collisionWorld = null;
+        dead = false;
+        boundingRectangle = new Rectangle();
+        boundaryDirty = true;
+        boundaryFrozen = false;
+        hasPreviousState = false;
+        interpolating = false;
+    }
+
+    // Marks the actor dead; it stays in place until the end of the current tick,
+    // when flushDestroyed() takes it out of its list, collision world, group and stage
+    public void destroy() {
+        if (dead) {
+            return;
+        }
+        dead = true;
+        destroyQueue.add(this);
     }
 
-    public void setParentList(ArrayList<? extends BaseActor> pl) {
-        parentList = pl;
+    public boolean isDead() {
+        return dead;
     }
 
-    public void destroy() {
-        remove();
-        if (parentList != null) {
-            parentList.remove(this);
+    // Removes every actor destroyed since the last call.
+    // List removal is a swap-remove per actor; each affected group is compacted in one pass.
+    public static void flushDestroyed() {
+        if (destroyQueue.size == 0) {
+            return;
+        }
+        for (int i = 0; i < destroyQueue.size; i++) {
+            BaseActor actor = destroyQueue.get(i);
+            if (actor.ownerList != null) {
+                actor.ownerList.remove(actor);
+            }
+            if (actor.collisionWorld != null) {
+                actor.collisionWorld.remove(actor);
+            }
+            Group parent = actor.getParent();
+            if (parent != null && !dirtyParents.contains(parent, true)) {
+                dirtyParents.add(parent);
+            }
+        }
+        for (int i = 0; i < dirtyParents.size; i++) {
+            removeDeadChildren(dirtyParents.get(i));
         }
+        //pooled actors are detached everywhere now, so they can be reused
+        for (int i = 0; i < destroyQueue.size; i++) {
+            BaseActor actor = destroyQueue.get(i);
+            if (actor.pool != null) {
+                actor.pool.recycle(actor);
+            }
+        }
+        destroyQueue.clear();
+        dirtyParents.clear();
+    }
+
+    private static void removeDeadChildren(Group parent) {
+        SnapshotArray<Actor> children = parent.getChildren();
+        Stage stage = parent.getStage();
+        int kept = 0;
+        for (int i = 0; i < children.size; i++) {
+            Actor child = children.get(i);
+            if (child instanceof BaseActor && ((BaseActor) child).dead) {
+                BaseActor actor = (BaseActor) child;
+                if (stage != null) {
+                    stage.unfocus(actor);
+                }
+                actor.setParent(null);
+                actor.setStage(null);
+            } else {
+                if (kept != i) {
+                    children.set(kept, child);
+                }
+                kept++;
+            }
+        }
+        children.truncate(kept);
     }
 
     public void setOriginCenter() {
@@ -56,12 +172,20 @@ public class BaseActor extends Group {
         textureRegion.setRegion(t);
     }
 
+    public void setTextureRegion(TextureRegion r) {
+        setWidth(r.getRegionWidth());
+        setHeight(r.getRegionHeight());
+        textureRegion.setRegion(r);
+    }
+
     public void setRectangleBoundary() {
         float w = getWidth();
         float h = getHeight();
         float[] vertices = { 0,0, w,0, w,h, 0,h };
         boundingPolygon = new Polygon(vertices);
         boundingPolygon.setOrigin(getOriginX(), getOriginY());
+        boundaryType = BoundaryType.RECTANGLE;
+        boundaryDirty = true;
     }
 
     public void setEllipseBoundary() {
@@ -76,21 +200,60 @@ public class BaseActor extends Group {
         }
         boundingPolygon = new Polygon(vertices);
         boundingPolygon.setOrigin(getOriginX(), getOriginY());
+        boundaryType = BoundaryType.ELLIPSE;
+        boundaryDirty = true;
+    }
+
+    // Any convex shape; collision always uses polygon SAT for it
+    public void setPolygonBoundary(float[] vertices) {
+        boundingPolygon = new Polygon(vertices);
+        boundingPolygon.setOrigin(getOriginX(), getOriginY());
+        boundaryType = BoundaryType.POLYGON;
+        boundaryDirty = true;
+    }
+
+    public BoundaryType getBoundaryType() {
+        return boundaryType;
+    }
+
+    // Bakes the current world polygon and bounds; use for static actors such as walls.
+    // A frozen actor ignores later transform changes until unfreezeBoundary() is called.
+    public void freezeBoundary() {
+        getBoundingPolygon();
+        boundaryFrozen = true;
+    }
+
+    public void unfreezeBoundary() {
+        boundaryFrozen = false;
+        boundaryDirty = true;
     }
 
     public Polygon getBoundingPolygon() {
-        boundingPolygon.setPosition(getX(), getY());
-        boundingPolygon.setRotation(getRotation());
+        if (!boundaryFrozen && (boundaryDirty || boundaryX != getX()
+                || boundaryY != getY() || boundaryRotation != getRotation())) {
+            boundaryX = getX();
+            boundaryY = getY();
+            boundaryRotation = getRotation();
+            boundaryDirty = false;
+            boundingPolygon.setPosition(boundaryX, boundaryY);
+            boundingPolygon.setRotation(boundaryRotation);
+            boundingRectangle.set(boundingPolygon.getBoundingRectangle());
+        }
         return boundingPolygon;
     }
 
+    public Rectangle getBoundingRectangle() {
+        getBoundingPolygon();
+        return boundingRectangle;
+    }
+
     public boolean overlaps(BaseActor other, boolean resolve) {
         Polygon polygon1 = this.getBoundingPolygon();
         Polygon polygon2 = other.getBoundingPolygon();
-        if (!polygon1.getBoundingRectangle().overlaps(polygon2.getBoundingRectangle())) {
+        if (!this.boundingRectangle.overlaps(other.boundingRectangle)) {
             return false;
         }
-        Intersector.MinimumTranslationVector mtv = new Intersector.MinimumTranslationVector();
+        Intersector.MinimumTranslationVector mtv = scratchMtv.get();
         boolean polyOverlap = Intersector.overlapConvexPolygons(polygon1, polygon2, mtv);
         if (polyOverlap && resolve) {
             this.moveBy(mtv.normal.x * mtv.depth, mtv.normal.y * mtv.depth);
@@ -99,6 +262,43 @@ public class BaseActor extends Group {
         return (polyOverlap && (mtv.depth > significant));
     }
 
+    // Called before each simulation step
+    public void savePreviousState() {
+        previousX = getX();
+        previousY = getY();
+        previousRotation = getRotation();
+        hasPreviousState = true;
+    }
+
+    // Temporarily moves the actor between its previous and current simulated transform;
+    // endInterpolation() puts the simulated transform back after drawing
+    public void beginInterpolation(float alpha) {
+        if (!hasPreviousState) {
+            return;
+        }
+        simulatedX = getX();
+        simulatedY = getY();
+        simulatedRotation = getRotation();
+        if (previousX == simulatedX && previousY == simulatedY
+                && previousRotation == simulatedRotation) {
+            return; //not moving, nothing to interpolate
+        }
+        interpolating = true;
+        float turn = ((simulatedRotation - previousRotation) % 360 + 540) % 360 - 180;
+        setPosition(MathUtils.lerp(previousX, simulatedX, alpha),
+                MathUtils.lerp(previousY, simulatedY, alpha));
+        setRotation(previousRotation + turn * alpha);
+    }
+
+    public void endInterpolation() {
+        if (!interpolating) {
+            return;
+        }
+        interpolating = false;
+        setPosition(simulatedX, simulatedY);
+        setRotation(simulatedRotation);
+    }
+
     @Override
     public void act(float delta) {
         super.act(delta);
@@ -109,19 +309,28 @@ public class BaseActor extends Group {
         Color c = getColor();
         batch.setColor(c.r, c.g, c.b, c.a);
         if (isVisible()) {
+            RenderStats.actorsDrawn++;
             batch.draw(textureRegion, getX(), getY(), getOriginX(), getOriginY(),
                     getWidth(), getHeight(), getScaleX(), getScaleY(), getRotation());
         }
         super.draw(batch, parentAlpha);
     }
 
+    // Copies the original's state into this actor. The region and polygon objects are reused
+    // when this actor already has them, and polygon vertices are shared with the original.
     public void copy(BaseActor original) {
         if (original.textureRegion.getTexture() != null) {
-            this.textureRegion = new TextureRegion(original.textureRegion);
+            this.textureRegion.setRegion(original.textureRegion);
         }
         if (original.boundingPolygon != null) {
-            this.boundingPolygon = new Polygon(original.boundingPolygon.getVertices());
+            if (this.boundingPolygon == null) {
+                this.boundingPolygon = new Polygon(original.boundingPolygon.getVertices());
+            } else if (this.boundingPolygon.getVertices() != original.boundingPolygon.getVertices()) {
+                this.boundingPolygon.setVertices(original.boundingPolygon.getVertices());
+            }
             this.boundingPolygon.setOrigin(original.getOriginX(), original.getOriginY());
+            this.boundaryType = original.boundaryType;
+            this.boundaryDirty = true;
         }
         this.setPosition(original.getX(), original.getY());
         this.setOriginX(original.getOriginX());
@@ -130,6 +339,31 @@ public class BaseActor extends Group {
         this.setHeight(original.getHeight());
         this.setColor(original.getColor());
         this.setVisible(original.isVisible());
+        this.hasPreviousState = false;
+    }
+
+    // Called when the actor goes back to its pool; leaves it like a new actor,
+    // except for the region and polygon objects, which the next copy() reuses
+    @Override
+    public void reset() {
+        clear();
+        remove();
+        if (ownerList != null) {
+            ownerList.remove(this);
+        }
+        if (collisionWorld != null) {
+            collisionWorld.remove(this);
+        }
+        dead = false;
+        setPosition(0, 0);
+        setRotation(0);
+        setScale(1);
+        setColor(1, 1, 1, 1);
+        setVisible(true);
+        boundaryFrozen = false;
+        boundaryDirty = true;
+        hasPreviousState = false;
+        interpolating = false;
     }
 
     public BaseActor clone() {
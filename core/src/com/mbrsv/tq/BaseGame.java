@@ -1,16 +1,35 @@
 package com.mbrsv.tq;
 
 import com.badlogic.gdx.Game;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 
 public abstract class BaseGame extends Game {
 
     Skin skin;
+    AssetManager assets;
+    //worker threads for gameplay jobs, shared by all screens
+    JobScheduler jobs;
 
-    public BaseGame() { skin = new Skin(); }
+    public BaseGame() {
+        skin = new Skin();
+        assets = new AssetManager();
+        assets.setLoader(TiledMap.class, new TmxMapLoader(new InternalFileHandleResolver()));
+        assets.setLoader(LevelData.class, new LevelLoader(new InternalFileHandleResolver()));
+        jobs = new JobScheduler();
+    }
 
     public abstract void create();
 
     @Override
-    public void dispose() { skin.dispose(); }
+    public void dispose() {
+        super.dispose();
+        if (screen != null) screen.dispose();
+        assets.dispose();
+        skin.dispose();
+        jobs.dispose();
+    }
 }
@@ -2,12 +2,24 @@ package com.mbrsv.tq;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputMultiplexer;
+import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.utils.GdxBuild;
+import com.badlogic.gdx.utils.SnapshotArray;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 
 public abstract class BaseScreen implements Screen, InputProcessor {
@@ -16,22 +28,71 @@ public abstract class BaseScreen implements Screen, InputProcessor {
     protected Stage mainStage;
     protected Stage uiStage;
     protected Table uiTable;
+    protected AssetCache assets;
     public final int viewWidth = 800;
     public final int viewHeight = 600;
     private boolean paused;
 
+    //fixed timestep: gameplay always advances in steps of stepTime seconds,
+    //drawing interpolates between the last two steps
+    private float stepTime;
+    private int maxStepsPerFrame;
+    private float accumulator;
+    private float interpolationAlpha;
+
+    //idle rendering: after idleFramesToSleep frames that changed nothing, continuous rendering
+    //stops until input (or Gdx.graphics.requestRendering()) wakes the screen again
+    private boolean idleRendering;
+    private int idleFramesToSleep;
+    private int idleFrames;
+    private boolean sleeping;
+
+    //both stages draw with one batch, so only one mesh and shader exist
+    private final SpriteBatch batch;
+    //moves the mainStage camera, which the tile renderer shares
+    protected final CameraController cameraController;
+    //world area visible through the mainStage camera; mainStage actors outside it are not drawn
+    protected final Rectangle viewBounds;
+    //camera version viewBounds was computed for
+    private int viewBoundsVersion;
+
+    //frame timings, shown in an overlay created on first use (F2) and recorded to file (F3)
+    protected final FrameProfiler profiler;
+    private BitmapFont statsFont;
+    private Label statsLabel;
+
     public BaseScreen(BaseGame g) {
         game = g;
+        assets = new AssetCache(game.assets);
 
-        mainStage = new Stage(new FitViewport(viewWidth, viewHeight));
-        uiStage = new Stage(new FitViewport(viewWidth, viewHeight));
+        batch = new SpriteBatch();
+        OrthographicCamera mainCamera = new OrthographicCamera();
+        mainStage = new Stage(new FitViewport(viewWidth, viewHeight, mainCamera), batch);
+        uiStage = new Stage(new FitViewport(viewWidth, viewHeight), batch);
+        cameraController = new CameraController(mainCamera);
 
         uiTable = new Table();
         uiTable.setFillParent(true);
         uiStage.addActor(uiTable);
 
+        viewBounds = new Rectangle(0, 0, viewWidth, viewHeight);
+        viewBoundsVersion = -1;
+        mainStage.getRoot().setCullingArea(viewBounds);
+
         paused = false;
 
+        stepTime = 1f / 60;
+        maxStepsPerFrame = 5;
+        accumulator = 0;
+        interpolationAlpha = 1;
+
+        idleRendering = true;
+        idleFramesToSleep = 2;
+        idleFrames = 0;
+        sleeping = false;
+
+        profiler = new FrameProfiler();
+
         InputMultiplexer im = new InputMultiplexer(this, uiStage, mainStage);
         Gdx.input.setInputProcessor(im);
 
@@ -47,6 +108,42 @@ public abstract class BaseScreen implements Screen, InputProcessor {
     public void setPaused(boolean b) { paused = b; }
     public void togglePaused() { paused = !paused; }
 
+    // FIXED TIMESTEP METHODS
+
+    public void setTickRate(int ticksPerSecond) { stepTime = 1f / ticksPerSecond; }
+    public float getStepTime() { return stepTime; }
+    //caps catch-up after a long frame; the remaining backlog is dropped instead of spiralling
+    public void setMaxStepsPerFrame(int n) { maxStepsPerFrame = n; }
+    public float getInterpolationAlpha() { return interpolationAlpha; }
+
+    // IDLE RENDERING METHODS
+
+    // false keeps rendering every frame, e.g. while measuring frame times
+    public void setIdleRendering(boolean b) {
+        idleRendering = b;
+        if (!b) {
+            wake();
+        }
+    }
+    public boolean isIdleRendering() { return idleRendering; }
+    public boolean isSleeping() { return sleeping; }
+
+    // Whether the frame just drawn would look the same if drawn again: nothing moving, animating
+    // or loading. Screens that can tell override this; the default keeps rendering.
+    protected boolean isIdle() {
+        return false;
+    }
+
+    // Back to continuous rendering; the time spent asleep is not gameplay time
+    private void wake() {
+        if (sleeping) {
+            sleeping = false;
+            accumulator = 0;
+            Gdx.graphics.setContinuousRendering(true);
+        }
+        idleFrames = 0;
+    }
+
     // SCREEN METHODS
 
     @Override
@@ -54,40 +151,224 @@ public abstract class BaseScreen implements Screen, InputProcessor {
 
     @Override
     public void render(float delta) {
+        if (sleeping) {
+            //woken by input; run at most one step for it instead of catching up the idle time
+            wake();
+            delta = Math.min(delta, stepTime);
+        }
+        profiler.beginFrame();
+        profiler.begin(FrameProfiler.UI_ACT);
         uiStage.act(delta);
+        profiler.end(FrameProfiler.UI_ACT);
 
         if (!isPaused()) {
             //only pause gameplay events, not UI events
-            mainStage.act();
-            update(delta);
+            accumulator += delta;
+            int steps = 0;
+            while (accumulator >= stepTime && steps < maxStepsPerFrame) {
+                savePreviousStates(mainStage.getRoot());
+                profiler.begin(FrameProfiler.MAIN_ACT);
+                mainStage.act(stepTime);
+                profiler.end(FrameProfiler.MAIN_ACT);
+                profiler.begin(FrameProfiler.UPDATE);
+                update(stepTime);
+                BaseActor.flushDestroyed();
+                profiler.end(FrameProfiler.UPDATE);
+                profiler.step();
+                accumulator -= stepTime;
+                steps++;
+            }
+            if (accumulator >= stepTime) {
+                accumulator %= stepTime;
+            }
+            interpolationAlpha = accumulator / stepTime;
         }
 
         Gdx.gl.glClearColor(0, 0, 0, 0);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        mainStage.draw();
+        RenderStats.reset();
+        beginInterpolation(mainStage.getRoot(), interpolationAlpha);
+        updateView(delta);
+        if (viewBoundsVersion != cameraController.getVersion()) {
+            updateViewBounds();
+        }
+        drawMain();
+        endInterpolation(mainStage.getRoot());
+        //the overlay and the trace both want every frame
+        boolean profiling = (statsLabel != null && statsLabel.isVisible()) || profiler.isRecording();
+        //walking the whole actor tree is only worth it while someone reads the totals
+        int actors = 0;
+        if (profiling) {
+            actors = countActors(mainStage.getRoot());
+            RenderStats.actorsCulled = actors - RenderStats.actorsDrawn;
+        }
+        if (statsLabel != null && statsLabel.isVisible() && profiler.hasNewSummary()) {
+            updateRenderStats();
+        }
+        profiler.begin(FrameProfiler.UI_DRAW);
         uiStage.draw();
+        profiler.end(FrameProfiler.UI_DRAW);
+        profiler.endFrame(delta, actors, getEntityCount());
+
+        if (idleRendering && !profiling && isIdle()) {
+            //draw the settled state a frame or two before stopping, so it is what stays on screen
+            if (++idleFrames >= idleFramesToSleep) {
+                sleeping = true;
+                Gdx.graphics.setContinuousRendering(false);
+            }
+        } else {
+            idleFrames = 0;
+        }
+    }
+
+    // Positions the camera (through cameraController) before drawing,
+    // with actors at their interpolated positions
+    protected void updateView(float delta) {}
+
+    // Draws the gameplay layer with actors at their interpolated positions.
+    // Screens with extra layers (tile maps etc.) override this and time them with profiler.
+    protected void drawMain() {
+        profiler.begin(FrameProfiler.STAGE_DRAW);
+        mainStage.draw();
+        profiler.end(FrameProfiler.STAGE_DRAW);
+        RenderStats.countBatch(mainStage.getBatch());
+    }
+
+    // Entities kept outside the actor tree (entity stores), for the profiler
+    protected int getEntityCount() {
+        return 0;
+    }
+
+    protected void updateViewBounds() {
+        viewBoundsVersion = cameraController.getVersion();
+        Camera camera = mainStage.getCamera();
+        float w = camera.viewportWidth;
+        float h = camera.viewportHeight;
+        if (camera instanceof OrthographicCamera) {
+            w *= ((OrthographicCamera) camera).zoom;
+            h *= ((OrthographicCamera) camera).zoom;
+        }
+        viewBounds.set(camera.position.x - w / 2, camera.position.y - h / 2, w, h);
+    }
+
+    private int countActors(Group group) {
+        int count = 0;
+        SnapshotArray<Actor> children = group.getChildren();
+        for (int i = 0; i < children.size; i++) {
+            Actor actor = children.get(i);
+            if (actor instanceof BaseActor) {
+                count++;
+            }
+            if (actor instanceof Group) {
+                count += countActors((Group) actor);
+            }
+        }
+        return count;
+    }
+
+    // PROFILER METHODS
+
+    public void toggleRenderStats() {
+        if (statsLabel == null) {
+            statsFont = new BitmapFont();
+            statsLabel = new Label("", new LabelStyle(statsFont, Color.WHITE));
+            statsLabel.setVisible(false);
+            uiStage.addActor(statsLabel);
+        }
+        statsLabel.setVisible(!statsLabel.isVisible());
+    }
+
+    private void updateRenderStats() {
+        statsLabel.setText(profiler.getSummary());
+        statsLabel.pack();
+        statsLabel.setPosition(8, viewHeight - 8 - statsLabel.getHeight());
+    }
+
+    private void savePreviousStates(Group group) {
+        SnapshotArray<Actor> children = group.getChildren();
+        for (int i = 0; i < children.size; i++) {
+            Actor actor = children.get(i);
+            if (actor instanceof BaseActor) {
+                ((BaseActor) actor).savePreviousState();
+            }
+            if (actor instanceof Group) {
+                savePreviousStates((Group) actor);
+            }
+        }
+    }
+
+    private void beginInterpolation(Group group, float alpha) {
+        SnapshotArray<Actor> children = group.getChildren();
+        for (int i = 0; i < children.size; i++) {
+            Actor actor = children.get(i);
+            if (actor instanceof BaseActor) {
+                ((BaseActor) actor).beginInterpolation(alpha);
+            }
+            if (actor instanceof Group) {
+                beginInterpolation((Group) actor, alpha);
+            }
+        }
+    }
+
+    private void endInterpolation(Group group) {
+        SnapshotArray<Actor> children = group.getChildren();
+        for (int i = 0; i < children.size; i++) {
+            Actor actor = children.get(i);
+            if (actor instanceof BaseActor) {
+                ((BaseActor) actor).endInterpolation();
+            }
+            if (actor instanceof Group) {
+                endInterpolation((Group) actor);
+            }
+        }
     }
 
     @Override
     public void resize(int width, int height) {
-        mainStage.getViewport().update(width, height, true);
+        //the controller keeps its own position, so the main camera is not re-centered
+        mainStage.getViewport().update(width, height, false);
         uiStage.getViewport().update(width, height, true);
+        cameraController.invalidate();
     }
 
     @Override
     public void pause() {}
     @Override
-    public void resume() {}
+    public void resume() {
+        wake();
+    }
     @Override
-    public void hide() {}
+    public void hide() {
+        //the next screen starts out rendering continuously
+        wake();
+    }
     @Override
-    public void dispose() {}
+    public void dispose() {
+        mainStage.dispose();
+        uiStage.dispose();
+        batch.dispose();
+        assets.dispose();
+        profiler.stopRecording();
+        if (statsFont != null) {
+            statsFont.dispose();
+        }
+    }
 
     // INPUT PROCESSOR METHODS
 
     @Override
-    public boolean keyDown(int keycode) { return false; }
+    public boolean keyDown(int keycode) {
+        if (keycode == Keys.F2) {
+            toggleRenderStats();
+            return true;
+        }
+        if (keycode == Keys.F3) {
+            profiler.toggleRecording();
+            return true;
+        }
+        return false;
+    }
     @Override
     public boolean keyUp(int keycode) { return false; }
     @Override
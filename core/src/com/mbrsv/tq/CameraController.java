@@ -0,0 +1,125 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.math.MathUtils;
+
+// Moves an orthographic camera after a target, with an optional dead zone and smoothing,
+// kept inside the world bounds. The camera matrices are only recomputed when the position
+// actually changes; each change bumps getVersion(), so anything derived from the view
+// (visible tile ranges, culling bounds) can skip its work on frames where nothing moved.
+public class CameraController {
+
+    private final OrthographicCamera camera;
+    private boolean bounded;
+    private float minX, minY, maxX, maxY;
+    private float deadZoneWidth;
+    private float deadZoneHeight;
+    //per second; 0 follows the target exactly
+    private float smoothing;
+    //where the camera is heading, after the dead zone and bounds
+    private float goalX;
+    private float goalY;
+    private int version;
+
+    public CameraController(OrthographicCamera camera) {
+        this.camera = camera;
+        bounded = false;
+        deadZoneWidth = 0;
+        deadZoneHeight = 0;
+        smoothing = 0;
+        goalX = camera.position.x;
+        goalY = camera.position.y;
+        version = 0;
+    }
+
+    // Keeps the view inside this world area; a world smaller than the view is centered
+    public void setBounds(float x, float y, float width, float height) {
+        bounded = true;
+        minX = x;
+        minY = y;
+        maxX = x + width;
+        maxY = y + height;
+    }
+
+    // The target moves this freely around the view center before the camera follows
+    public void setDeadZone(float width, float height) {
+        deadZoneWidth = width;
+        deadZoneHeight = height;
+    }
+
+    // How fast the camera closes the gap to its goal, per second; 0 snaps
+    public void setSmoothing(float rate) {
+        smoothing = rate;
+    }
+
+    public void follow(float x, float y, float delta) {
+        float halfWidth = deadZoneWidth / 2;
+        float halfHeight = deadZoneHeight / 2;
+        if (x < goalX - halfWidth) {
+            goalX = x + halfWidth;
+        } else if (x > goalX + halfWidth) {
+            goalX = x - halfWidth;
+        }
+        if (y < goalY - halfHeight) {
+            goalY = y + halfHeight;
+        } else if (y > goalY + halfHeight) {
+            goalY = y - halfHeight;
+        }
+        clampGoal();
+
+        float nextX = goalX;
+        float nextY = goalY;
+        if (smoothing > 0) {
+            float t = 1 - (float) Math.exp(-smoothing * delta);
+            nextX = camera.position.x + (goalX - camera.position.x) * t;
+            nextY = camera.position.y + (goalY - camera.position.y) * t;
+            //settle exactly on the goal, so an idle camera stops changing
+            if (Math.abs(goalX - nextX) < 0.1f && Math.abs(goalY - nextY) < 0.1f) {
+                nextX = goalX;
+                nextY = goalY;
+            }
+        }
+        moveTo(nextX, nextY);
+    }
+
+    // Centers on the point at once, e.g. when a level starts
+    public void snapTo(float x, float y) {
+        goalX = x;
+        goalY = y;
+        clampGoal();
+        moveTo(goalX, goalY);
+    }
+
+    // Recomputes the matrices after the viewport or zoom changed
+    public void invalidate() {
+        clampGoal();
+        camera.position.set(goalX, goalY, camera.position.z);
+        camera.update();
+        version++;
+    }
+
+    private void clampGoal() {
+        if (!bounded) {
+            return;
+        }
+        float halfViewWidth = camera.viewportWidth * camera.zoom / 2;
+        float halfViewHeight = camera.viewportHeight * camera.zoom / 2;
+        goalX = maxX - minX < 2 * halfViewWidth ? (minX + maxX) / 2
+                : MathUtils.clamp(goalX, minX + halfViewWidth, maxX - halfViewWidth);
+        goalY = maxY - minY < 2 * halfViewHeight ? (minY + maxY) / 2
+                : MathUtils.clamp(goalY, minY + halfViewHeight, maxY - halfViewHeight);
+    }
+
+    private void moveTo(float x, float y) {
+        if (x == camera.position.x && y == camera.position.y) {
+            return;
+        }
+        camera.position.set(x, y, camera.position.z);
+        camera.update();
+        version++;
+    }
+
+    public OrthographicCamera getCamera() { return camera; }
+    // Changes whenever the view has moved; compare with the value from the last update
+    public int getVersion() { return version; }
+}
@@ -0,0 +1,14 @@
+package com.mbrsv.tq;
+
+// Supplies the content of world chunks to a WorldStreamer.
+// load() runs on the streamer's loader thread, so it must not touch GL or the scene graph.
+public interface ChunkSource {
+
+    // Size of the whole world, in tiles
+    int getTileCountWidth();
+    int getTileCountHeight();
+    int getTileSize();
+
+    // Builds the chunk at (col, row) of chunkTiles x chunkTiles tiles
+    WorldChunk load(int col, int row, int chunkTiles);
+}
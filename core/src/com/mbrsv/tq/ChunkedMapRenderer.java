@@ -0,0 +1,287 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapLayers;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+
+// Renders static tile layers from pre-built SpriteCache chunks instead of re-emitting every
+// visible cell each frame. Chunks are built the first time they come into view; once maxChunks
+// are resident, the chunk that left the view longest ago gives its cache slot to the new one.
+// All chunks live in one SpriteCache, so a layer group draws with a single begin/end.
+// Tiles are baked as they are at build time, so animated tiles show their current frame only.
+public class ChunkedMapRenderer implements Disposable {
+
+    private final TiledMap map;
+    private final int chunkTiles;
+    private final int maxChunks;
+    private final float tileWidth;
+    private final float tileHeight;
+    private final int mapCols;
+    private final int mapRows;
+    private final int chunkCols;
+    private final int chunkRows;
+
+    private final Array<int[]> layerGroups;
+    private final IntMap<Chunk> chunks;
+    //chunks dropped by invalidate(), whose cache slots are free for reuse
+    private final Array<Chunk> freeChunks;
+    //counts setView calls; chunks in the current view were last used in this one
+    private int view;
+
+    //every slot is created with slotSize sprites, so any chunk can later be rebuilt into it
+    private SpriteCache cache;
+    private int slotSize;
+    private TextureRegion paddingRegion;
+
+    //visible chunk range, from the last setView()
+    private OrthographicCamera camera;
+    private int minCol, minRow, maxCol, maxRow;
+
+    private static class Chunk {
+        int cacheId;
+        int sprites;
+        int lastUsed;
+    }
+
+    public ChunkedMapRenderer(TiledMap map, int chunkTiles, int maxChunks) {
+        this.map = map;
+        this.chunkTiles = chunkTiles;
+        this.maxChunks = maxChunks;
+
+        //the map size comes from the largest tile layer
+        int cols = 0;
+        int rows = 0;
+        float tw = 0;
+        float th = 0;
+        for (MapLayer layer : map.getLayers()) {
+            if (layer instanceof TiledMapTileLayer) {
+                TiledMapTileLayer tileLayer = (TiledMapTileLayer) layer;
+                cols = Math.max(cols, tileLayer.getWidth());
+                rows = Math.max(rows, tileLayer.getHeight());
+                tw = tileLayer.getTileWidth();
+                th = tileLayer.getTileHeight();
+            }
+        }
+        mapCols = cols;
+        mapRows = rows;
+        tileWidth = tw;
+        tileHeight = th;
+        chunkCols = Math.max(1, MathUtils.ceil((float) mapCols / chunkTiles));
+        chunkRows = Math.max(1, MathUtils.ceil((float) mapRows / chunkTiles));
+
+        //any tile region will do for padding, it is never drawn
+        paddingRegion = null;
+        for (TiledMapTileSet tileSet : map.getTileSets()) {
+            for (TiledMapTile tile : tileSet) {
+                paddingRegion = tile.getTextureRegion();
+                break;
+            }
+            if (paddingRegion != null) {
+                break;
+            }
+        }
+
+        layerGroups = new Array<int[]>();
+        chunks = new IntMap<Chunk>();
+        freeChunks = new Array<Chunk>();
+        view = 0;
+        cache = null;
+        slotSize = 0;
+    }
+
+    // Registers layers that are always drawn together; returns the id to pass to render().
+    // All groups must be added before the first render.
+    public int addLayerGroup(int[] layers) {
+        layerGroups.add(layers);
+        slotSize = Math.max(slotSize, chunkTiles * chunkTiles * layers.length);
+        return layerGroups.size - 1;
+    }
+
+    // Call after the camera has been updated, whenever it has moved (see CameraController)
+    public void setView(OrthographicCamera camera) {
+        this.camera = camera;
+        view++;
+        float chunkWidth = chunkTiles * tileWidth;
+        float chunkHeight = chunkTiles * tileHeight;
+        float halfWidth = camera.viewportWidth * camera.zoom / 2;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2;
+        minCol = Math.max(0, MathUtils.floor((camera.position.x - halfWidth) / chunkWidth));
+        minRow = Math.max(0, MathUtils.floor((camera.position.y - halfHeight) / chunkHeight));
+        maxCol = Math.min(chunkCols - 1, MathUtils.floor((camera.position.x + halfWidth) / chunkWidth));
+        maxRow = Math.min(chunkRows - 1, MathUtils.floor((camera.position.y + halfHeight) / chunkHeight));
+    }
+
+    public void render(int group) {
+        if (paddingRegion == null) {
+            return; //no tiles in this map
+        }
+        if (cache == null) {
+            //non-indexed, since indexed caches are limited to 8191 sprites
+            int slots = Math.min(maxChunks, chunkCols * chunkRows * layerGroups.size);
+            cache = new SpriteCache(slotSize * slots, false);
+        }
+
+        //build missing chunks first; caches cannot be defined between begin and end
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int key = group * chunkCols * chunkRows + row * chunkCols + col;
+                Chunk chunk = chunks.get(key);
+                if (chunk == null) {
+                    chunk = buildChunk(layerGroups.get(group), col, row, evict());
+                    chunks.put(key, chunk);
+                }
+                chunk.lastUsed = view;
+            }
+        }
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        cache.setProjectionMatrix(camera.combined);
+        cache.begin();
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                Chunk chunk = chunks.get(group * chunkCols * chunkRows + row * chunkCols + col);
+                if (chunk.sprites > 0) {
+                    cache.draw(chunk.cacheId, 0, chunk.sprites);
+                }
+            }
+        }
+        cache.end();
+        RenderStats.renderCalls += cache.renderCalls;
+    }
+
+    // Rebuilds the chunks covering these tiles the next time they are drawn,
+    // for cells that changed after the chunks were built (streamed tiles)
+    public void invalidate(int tileX, int tileY, int tileCountWidth, int tileCountHeight) {
+        int firstCol = Math.max(0, tileX / chunkTiles);
+        int firstRow = Math.max(0, tileY / chunkTiles);
+        int lastCol = Math.min(chunkCols - 1, (tileX + tileCountWidth - 1) / chunkTiles);
+        int lastRow = Math.min(chunkRows - 1, (tileY + tileCountHeight - 1) / chunkTiles);
+        for (int group = 0; group < layerGroups.size; group++) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstCol; col <= lastCol; col++) {
+                    Chunk chunk = chunks.remove(group * chunkCols * chunkRows + row * chunkCols + col);
+                    if (chunk != null) {
+                        freeChunks.add(chunk);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getResidentChunks() {
+        return chunks.size;
+    }
+
+    private Chunk buildChunk(int[] layers, int col, int row, Chunk recycled) {
+        MapLayers mapLayers = map.getLayers();
+        Chunk chunk = recycled;
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunk.cacheId = -1;
+        }
+        chunk.sprites = 0;
+
+        int startX = col * chunkTiles;
+        int startY = row * chunkTiles;
+        int endX = Math.min(startX + chunkTiles, mapCols);
+        int endY = Math.min(startY + chunkTiles, mapRows);
+
+        if (chunk.cacheId == -1) {
+            cache.beginCache();
+        } else {
+            cache.beginCache(chunk.cacheId);
+        }
+        for (int layerIndex : layers) {
+            if (layerIndex >= mapLayers.getCount()) {
+                continue;
+            }
+            MapLayer mapLayer = mapLayers.get(layerIndex);
+            if (!(mapLayer instanceof TiledMapTileLayer) || !mapLayer.isVisible()) {
+                continue;
+            }
+            TiledMapTileLayer layer = (TiledMapTileLayer) mapLayer;
+            cache.setColor(1, 1, 1, layer.getOpacity());
+            for (int y = startY; y < endY; y++) {
+                for (int x = startX; x < endX; x++) {
+                    Cell cell = layer.getCell(x, y);
+                    if (cell == null || cell.getTile() == null) {
+                        continue;
+                    }
+                    TiledMapTile tile = cell.getTile();
+                    TextureRegion region = tile.getTextureRegion();
+                    float drawX = x * tileWidth + tile.getOffsetX();
+                    float drawY = y * tileHeight + tile.getOffsetY();
+                    if (cell.getFlipHorizontally() || cell.getFlipVertically()) {
+                        region = new TextureRegion(region);
+                        region.flip(cell.getFlipHorizontally(), cell.getFlipVertically());
+                    }
+                    if (cell.getRotation() != Cell.ROTATE_0) {
+                        float w = region.getRegionWidth();
+                        float h = region.getRegionHeight();
+                        cache.add(region, drawX, drawY, w / 2, h / 2, w, h, 1, 1,
+                                cell.getRotation() * 90);
+                    } else {
+                        cache.add(region, drawX, drawY);
+                    }
+                    chunk.sprites++;
+                }
+            }
+        }
+        if (chunk.cacheId == -1) {
+            //pad a new slot to full size with empty quads, they are never drawn
+            for (int i = chunk.sprites; i < slotSize; i++) {
+                cache.add(paddingRegion, 0, 0, 0, 0);
+            }
+        }
+        cache.setColor(1, 1, 1, 1);
+        chunk.cacheId = cache.endCache();
+        return chunk;
+    }
+
+    // Frees the least recently viewed chunk once the budget is used up and returns it for reuse;
+    // chunks in the current view are kept, so maxChunks must cover what one view shows
+    private Chunk evict() {
+        if (freeChunks.size > 0) {
+            return freeChunks.pop();
+        }
+        if (chunks.size < Math.min(maxChunks, chunkCols * chunkRows * layerGroups.size)) {
+            return null;
+        }
+        int oldestKey = -1;
+        int oldestView = view;
+        for (IntMap.Entry<Chunk> entry : chunks.entries()) {
+            if (entry.value.lastUsed < oldestView) {
+                oldestView = entry.value.lastUsed;
+                oldestKey = entry.key;
+            }
+        }
+        if (oldestKey == -1) {
+            throw new GdxRuntimeException("maxChunks is too small for the visible area");
+        }
+        return chunks.remove(oldestKey);
+    }
+
+    @Override
+    public void dispose() {
+        if (cache != null) {
+            cache.dispose();
+        }
+        chunks.clear();
+        freeChunks.clear();
+    }
+}
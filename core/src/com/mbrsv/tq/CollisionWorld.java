@@ -0,0 +1,245 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+// Actor-versus-actor collision with a sort-and-sweep broad phase along x. The sorted order is
+// kept between updates and repaired with an insertion sort, which is close to linear when
+// actors only move a little each tick. Candidate pairs must match each other's layer masks and
+// pass the polygon test. Touching pairs are cached between updates, so the listener only hears
+// about pairs that start or stop touching; the current pairs can be read back every tick.
+public class CollisionWorld {
+
+    public interface ContactListener {
+        void beginContact(BaseActor a, BaseActor b);
+        void endContact(BaseActor a, BaseActor b);
+    }
+
+    //per body, by id; ids are reused after removal
+    private BaseActor[] actors;
+    private int[] layers;
+    private int[] masks;
+    private float[] minX;
+    private float[] maxX;
+    private float[] minY;
+    private float[] maxY;
+    private final ObjectIntMap<BaseActor> ids;
+    private final IntArray freeIds;
+    private int nextId;
+
+    //body ids sorted by minX as of the last update
+    private int[] order;
+    private int count;
+
+    //touching pairs as (lower id << 32 | higher id), sorted; this update's and the last one's
+    private LongArray pairs;
+    private LongArray previousPairs;
+    private ContactListener listener;
+
+    public CollisionWorld() {
+        int capacity = 16;
+        actors = new BaseActor[capacity];
+        layers = new int[capacity];
+        masks = new int[capacity];
+        minX = new float[capacity];
+        maxX = new float[capacity];
+        minY = new float[capacity];
+        maxY = new float[capacity];
+        order = new int[capacity];
+        ids = new ObjectIntMap<BaseActor>();
+        freeIds = new IntArray();
+        nextId = 0;
+        count = 0;
+        pairs = new LongArray();
+        previousPairs = new LongArray();
+        listener = null;
+    }
+
+    public void setContactListener(ContactListener listener) {
+        this.listener = listener;
+    }
+
+    // Adds a body. Two bodies can touch only if each one's layer bits are in the other's mask.
+    // Destroyed actors are removed again by BaseActor.flushDestroyed().
+    public void add(BaseActor actor, int layer, int mask) {
+        if (actor.collisionWorld != null) {
+            throw new GdxRuntimeException("Actor is already in a collision world");
+        }
+        int id;
+        if (freeIds.size > 0) {
+            id = freeIds.pop();
+        } else {
+            id = nextId++;
+            if (id == actors.length) {
+                resize(id * 2);
+            }
+        }
+        actors[id] = actor;
+        layers[id] = layer;
+        masks[id] = mask;
+        ids.put(actor, id);
+        actor.collisionWorld = this;
+
+        //keep the order sorted, so the next update only has to fix up movement
+        Rectangle bounds = actor.getBoundingRectangle();
+        setBounds(id, bounds);
+        int i = count++;
+        while (i > 0 && minX[order[i - 1]] > minX[id]) {
+            order[i] = order[i - 1];
+            i--;
+        }
+        order[i] = id;
+    }
+
+    // Removes a body; pairs it was part of end right away
+    public void remove(BaseActor actor) {
+        int id = ids.remove(actor, -1);
+        if (id == -1) {
+            return;
+        }
+        actor.collisionWorld = null;
+        int kept = 0;
+        for (int i = 0; i < previousPairs.size; i++) {
+            long pair = previousPairs.get(i);
+            if (first(pair) == id || second(pair) == id) {
+                if (listener != null) {
+                    listener.endContact(actors[first(pair)], actors[second(pair)]);
+                }
+            } else {
+                previousPairs.set(kept++, pair);
+            }
+        }
+        previousPairs.size = kept;
+
+        for (int i = 0; i < count; i++) {
+            if (order[i] == id) {
+                System.arraycopy(order, i + 1, order, i, count - i - 1);
+                break;
+            }
+        }
+        count--;
+        actors[id] = null;
+        freeIds.add(id);
+    }
+
+    public boolean contains(BaseActor actor) {
+        return ids.containsKey(actor);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Finds the touching pairs for the bodies' current positions and reports changes.
+    // Call after the actors have moved. The listener may move actors, but bodies must only be
+    // added or removed outside update().
+    public void update() {
+        for (int i = 0; i < count; i++) {
+            int id = order[i];
+            setBounds(id, actors[id].getBoundingRectangle());
+        }
+
+        //insertion sort: each body only moves past the few bodies it overtook since last time
+        for (int i = 1; i < count; i++) {
+            int id = order[i];
+            float key = minX[id];
+            int j = i - 1;
+            while (j >= 0 && minX[order[j]] > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = id;
+        }
+
+        //sweep: only bodies starting before this one ends along x can overlap it
+        pairs.clear();
+        for (int i = 0; i < count; i++) {
+            int a = order[i];
+            float right = maxX[a];
+            for (int j = i + 1; j < count; j++) {
+                int b = order[j];
+                if (minX[b] > right) {
+                    break;
+                }
+                if (minY[b] > maxY[a] || maxY[b] < minY[a]) {
+                    continue;
+                }
+                if ((layers[a] & masks[b]) == 0 || (layers[b] & masks[a]) == 0) {
+                    continue;
+                }
+                if (actors[a].overlaps(actors[b], false)) {
+                    pairs.add(a < b ? (long) a << 32 | b : (long) b << 32 | a);
+                }
+            }
+        }
+        pairs.sort();
+
+        //walk both sorted pair lists to find the pairs that began and ended
+        LongArray current = pairs;
+        LongArray previous = previousPairs;
+        pairs = previous;
+        previousPairs = current;
+        if (listener == null) {
+            return;
+        }
+        int p = 0;
+        int c = 0;
+        while (p < previous.size || c < current.size) {
+            long oldPair = p < previous.size ? previous.get(p) : Long.MAX_VALUE;
+            long newPair = c < current.size ? current.get(c) : Long.MAX_VALUE;
+            if (oldPair == newPair) {
+                p++;
+                c++;
+            } else if (newPair < oldPair) {
+                listener.beginContact(actors[first(newPair)], actors[second(newPair)]);
+                c++;
+            } else {
+                listener.endContact(actors[first(oldPair)], actors[second(oldPair)]);
+                p++;
+            }
+        }
+    }
+
+    // Pairs touching as of the last update, e.g. for resolving overlaps every tick
+    public int getPairCount() { return previousPairs.size; }
+    public BaseActor getPairA(int index) { return actors[first(previousPairs.get(index))]; }
+    public BaseActor getPairB(int index) { return actors[second(previousPairs.get(index))]; }
+
+    private static int first(long pair) { return (int) (pair >>> 32); }
+    private static int second(long pair) { return (int) pair; }
+
+    private void setBounds(int id, Rectangle bounds) {
+        minX[id] = bounds.x;
+        maxX[id] = bounds.x + bounds.width;
+        minY[id] = bounds.y;
+        maxY[id] = bounds.y + bounds.height;
+    }
+
+    private void resize(int capacity) {
+        BaseActor[] newActors = new BaseActor[capacity];
+        System.arraycopy(actors, 0, newActors, 0, actors.length);
+        actors = newActors;
+        layers = copyOf(layers, capacity);
+        masks = copyOf(masks, capacity);
+        order = copyOf(order, capacity);
+        minX = copyOf(minX, capacity);
+        maxX = copyOf(maxX, capacity);
+        minY = copyOf(minY, capacity);
+        maxY = copyOf(maxY, capacity);
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    private static float[] copyOf(float[] array, int length) {
+        float[] copy = new float[length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+}
@@ -0,0 +1,263 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.IntArray;
+
+// Compact storage for many identical entities (coins, pickups).
+// Positions and velocities live in primitive arrays; the region, size and bounding polygon
+// come from a single template actor. The whole store is one Actor on the stage, so it is
+// updated and drawn in one pass instead of one Group per entity.
+public class EntityStore extends Actor {
+
+    private final TextureRegion region;
+    private final float entityWidth;
+    private final float entityHeight;
+    private final Polygon polygon;
+    private final Intersector.MinimumTranslationVector mtv;
+
+    private float[] x;
+    private float[] y;
+    private float[] vx;
+    private float[] vy;
+    private int[] id;
+    private int size;
+    private boolean moving;
+
+    //bucket index over entity positions, rebuilt lazily after the store changes
+    private final float cellSize;
+    private final int cols;
+    private final int rows;
+    private int[] cellStart;
+    private int[] cellEntities;
+    private boolean indexDirty;
+    private Rectangle cullingArea;
+
+    public EntityStore(BaseActor template, float cellSize, float worldWidth, float worldHeight) {
+        region = template.textureRegion;
+        entityWidth = template.getWidth();
+        entityHeight = template.getHeight();
+        //vertices are shared with the template, never modified here
+        polygon = new Polygon(template.boundingPolygon.getVertices());
+        polygon.setOrigin(template.getOriginX(), template.getOriginY());
+        mtv = new Intersector.MinimumTranslationVector();
+
+        int capacity = 16;
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        id = new int[capacity];
+        size = 0;
+        moving = false;
+
+        this.cellSize = cellSize;
+        cols = Math.max(1, MathUtils.ceil(worldWidth / cellSize));
+        rows = Math.max(1, MathUtils.ceil(worldHeight / cellSize));
+        cellStart = new int[cols * rows + 1];
+        cellEntities = new int[capacity];
+        indexDirty = true;
+        cullingArea = null;
+
+        //cover the whole world so the stage never culls the store as a single actor
+        setSize(worldWidth, worldHeight);
+    }
+
+    // Only entities in cells overlapping this area are drawn; null draws everything
+    public void setCullingArea(Rectangle area) {
+        cullingArea = area;
+    }
+
+    // Adds an entity and returns its index; indices change when entities are removed
+    public int add(float px, float py, int entityId) {
+        if (size == x.length) {
+            resize(Math.max(8, (int) (size * 1.75f)));
+        }
+        x[size] = px;
+        y[size] = py;
+        vx[size] = 0;
+        vy[size] = 0;
+        id[size] = entityId;
+        indexDirty = true;
+        return size++;
+    }
+
+    // Swap-remove: the last entity takes over the removed index
+    public void remove(int index) {
+        size--;
+        x[index] = x[size];
+        y[index] = y[size];
+        vx[index] = vx[size];
+        vy[index] = vy[size];
+        id[index] = id[size];
+        indexDirty = true;
+    }
+
+    public void clear() {
+        size = 0;
+        moving = false;
+        indexDirty = true;
+    }
+
+    public int size() { return size; }
+    // Whether any entity has a velocity; still stores do no work in act()
+    public boolean isMoving() { return moving; }
+    public float getEntityX(int index) { return x[index]; }
+    public float getEntityY(int index) { return y[index]; }
+    public int getEntityId(int index) { return id[index]; }
+    public float getEntityWidth() { return entityWidth; }
+    public float getEntityHeight() { return entityHeight; }
+
+    public void setEntityPosition(int index, float px, float py) {
+        x[index] = px;
+        y[index] = py;
+        indexDirty = true;
+    }
+
+    public void setEntityVelocity(int index, float velocityX, float velocityY) {
+        vx[index] = velocityX;
+        vy[index] = velocityY;
+        if (velocityX != 0 || velocityY != 0) {
+            moving = true;
+        }
+    }
+
+    // Collects the indices of entities that may overlap the area into out (cleared first)
+    public IntArray query(Rectangle area, IntArray out) {
+        out.clear();
+        if (indexDirty) {
+            rebuildIndex();
+        }
+        //entities are bucketed by their lower-left corner, so widen the area by one entity
+        int minCol = clampCol(MathUtils.floor((area.x - entityWidth) / cellSize));
+        int minRow = clampRow(MathUtils.floor((area.y - entityHeight) / cellSize));
+        int maxCol = clampCol(MathUtils.floor((area.x + area.width) / cellSize));
+        int maxRow = clampRow(MathUtils.floor((area.y + area.height) / cellSize));
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int cell = row * cols + col;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    out.add(cellEntities[i]);
+                }
+            }
+        }
+        return out;
+    }
+
+    // Same test as BaseActor.overlaps(other, false), with the template polygon at the entity
+    public boolean overlaps(int index, BaseActor actor) {
+        Rectangle bounds = actor.getBoundingRectangle();
+        if (x[index] > bounds.x + bounds.width || x[index] + entityWidth < bounds.x
+                || y[index] > bounds.y + bounds.height || y[index] + entityHeight < bounds.y) {
+            return false;
+        }
+        polygon.setPosition(x[index], y[index]);
+        boolean polyOverlap = Intersector.overlapConvexPolygons(actor.getBoundingPolygon(), polygon, mtv);
+        float significant = 0.5f;
+        return (polyOverlap && (mtv.depth > significant));
+    }
+
+    @Override
+    public void act(float delta) {
+        super.act(delta);
+        if (!moving) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            x[i] += vx[i] * delta;
+            y[i] += vy[i] * delta;
+        }
+        indexDirty = true;
+    }
+
+    @Override
+    public void draw(Batch batch, float parentAlpha) {
+        Color c = getColor();
+        batch.setColor(c.r, c.g, c.b, c.a * parentAlpha);
+        if (cullingArea == null) {
+            for (int i = 0; i < size; i++) {
+                batch.draw(region, x[i], y[i], entityWidth, entityHeight);
+            }
+            RenderStats.entitiesDrawn += size;
+            return;
+        }
+        if (indexDirty) {
+            rebuildIndex();
+        }
+        int drawn = 0;
+        int minCol = clampCol(MathUtils.floor((cullingArea.x - entityWidth) / cellSize));
+        int minRow = clampRow(MathUtils.floor((cullingArea.y - entityHeight) / cellSize));
+        int maxCol = clampCol(MathUtils.floor((cullingArea.x + cullingArea.width) / cellSize));
+        int maxRow = clampRow(MathUtils.floor((cullingArea.y + cullingArea.height) / cellSize));
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int cell = row * cols + col;
+                for (int n = cellStart[cell]; n < cellStart[cell + 1]; n++) {
+                    int i = cellEntities[n];
+                    batch.draw(region, x[i], y[i], entityWidth, entityHeight);
+                    drawn++;
+                }
+            }
+        }
+        RenderStats.entitiesDrawn += drawn;
+        RenderStats.entitiesCulled += size - drawn;
+    }
+
+    private void rebuildIndex() {
+        //counting sort of entity indices by cell
+        int cellCount = cols * rows;
+        for (int cell = 0; cell <= cellCount; cell++) {
+            cellStart[cell] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            cellStart[cellOf(i) + 1]++;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        if (cellEntities.length < size) {
+            cellEntities = new int[x.length];
+        }
+        //fill using the next free slot per cell, then shift the starts back
+        for (int i = 0; i < size; i++) {
+            int cell = cellOf(i);
+            cellEntities[cellStart[cell]++] = i;
+        }
+        for (int cell = cellCount; cell > 0; cell--) {
+            cellStart[cell] = cellStart[cell - 1];
+        }
+        cellStart[0] = 0;
+        indexDirty = false;
+    }
+
+    private int cellOf(int index) {
+        int col = clampCol(MathUtils.floor(x[index] / cellSize));
+        int row = clampRow(MathUtils.floor(y[index] / cellSize));
+        return row * cols + col;
+    }
+
+    private int clampCol(int col) { return MathUtils.clamp(col, 0, cols - 1); }
+    private int clampRow(int row) { return MathUtils.clamp(row, 0, rows - 1); }
+
+    private void resize(int capacity) {
+        x = copyOf(x, capacity);
+        y = copyOf(y, capacity);
+        vx = copyOf(vx, capacity);
+        vy = copyOf(vy, capacity);
+        int[] newId = new int[capacity];
+        System.arraycopy(id, 0, newId, 0, size);
+        id = newId;
+    }
+
+    private float[] copyOf(float[] array, int capacity) {
+        float[] result = new float[capacity];
+        System.arraycopy(array, 0, result, 0, size);
+        return result;
+    }
+}
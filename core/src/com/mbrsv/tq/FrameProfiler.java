@@ -0,0 +1,247 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Section timers and counters for each frame of a BaseScreen.
+// Sections may be entered several times per frame (mainStage.act once per fixed step), their
+// times add up. Finished frames feed a running average for the overlay and, while recording,
+// one CSV row each in a trace file, so runs from different devices can be compared offline.
+public class FrameProfiler {
+
+    public static final int UI_ACT = 0;
+    public static final int MAIN_ACT = 1;
+    public static final int UPDATE = 2;
+    public static final int TILES = 3;
+    public static final int STAGE_DRAW = 4;
+    public static final int UI_DRAW = 5;
+    public static final int PARTICLES = 6;
+    public static final int SECTION_COUNT = 7;
+
+    private static final String[] sectionNames =
+            {"ui act", "main act", "update", "tiles", "stage draw", "ui draw", "particles"};
+    private static final String[] sectionColumns =
+            {"ui_act_us", "main_act_us", "update_us", "tiles_us", "stage_draw_us", "ui_draw_us",
+                    "particles_us"};
+
+    //overlay figures are averaged over this many seconds
+    private static final float summaryInterval = 0.5f;
+
+    private final long[] sectionStart;
+    private final long[] sectionTime;
+    private long frameStart;
+    private long frameTime;
+    private int frame;
+    private int steps;
+    private long heap;
+    private long heapDelta;
+
+    //running sums for the overlay summary
+    private final long[] sumSectionTime;
+    private long sumFrameTime;
+    private long maxFrameTime;
+    private int sumFrames;
+    private long sumAllocated;
+    private int collections;
+    private float summaryTimer;
+    private final StringBuilder summary;
+    private boolean summaryChanged;
+
+    //trace file, open while recording
+    private Writer trace;
+    private FileHandle traceFile;
+    private final StringBuilder row;
+
+    public FrameProfiler() {
+        sectionStart = new long[SECTION_COUNT];
+        sectionTime = new long[SECTION_COUNT];
+        sumSectionTime = new long[SECTION_COUNT];
+        summary = new StringBuilder();
+        row = new StringBuilder();
+        frame = 0;
+        heap = Gdx.app.getJavaHeap();
+        trace = null;
+        traceFile = null;
+        resetSummary();
+    }
+
+    public void beginFrame() {
+        frameStart = TimeUtils.nanoTime();
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sectionTime[i] = 0;
+        }
+        steps = 0;
+    }
+
+    public void begin(int section) {
+        sectionStart[section] = TimeUtils.nanoTime();
+    }
+
+    public void end(int section) {
+        sectionTime[section] += TimeUtils.nanoTime() - sectionStart[section];
+    }
+
+    // Counts one fixed gameplay step in this frame
+    public void step() {
+        steps++;
+    }
+
+    // Closes the frame; reads the draw counters from RenderStats, so call after all drawing
+    public void endFrame(float delta, int actors, int entities) {
+        frameTime = TimeUtils.nanoTime() - frameStart;
+        frame++;
+
+        //the heap shrinks only when the collector has run; growth is what this frame allocated
+        long currentHeap = Gdx.app.getJavaHeap();
+        heapDelta = currentHeap - heap;
+        heap = currentHeap;
+        if (heapDelta < 0) {
+            collections++;
+        } else {
+            sumAllocated += heapDelta;
+        }
+
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sumSectionTime[i] += sectionTime[i];
+        }
+        sumFrameTime += frameTime;
+        maxFrameTime = Math.max(maxFrameTime, frameTime);
+        sumFrames++;
+        summaryTimer += delta;
+        if (summaryTimer >= summaryInterval) {
+            buildSummary(actors, entities);
+            resetSummary();
+        }
+
+        if (trace != null) {
+            writeRow(delta, actors, entities);
+        }
+    }
+
+    // Text for the overlay; only rebuilt every summaryInterval, see hasNewSummary()
+    public CharSequence getSummary() {
+        summaryChanged = false;
+        return summary;
+    }
+
+    public boolean hasNewSummary() {
+        return summaryChanged;
+    }
+
+    // TRACE METHODS
+
+    public boolean isRecording() {
+        return trace != null;
+    }
+
+    // Starts a CSV trace, one row per frame; times are in microseconds, heap figures in bytes
+    public void startRecording(FileHandle file) {
+        stopRecording();
+        traceFile = file;
+        trace = file.writer(false, "UTF-8");
+        row.setLength(0);
+        row.append("frame,delta_us,frame_us,steps");
+        for (String column : sectionColumns) {
+            row.append(',').append(column);
+        }
+        row.append(",render_calls,actors,actors_drawn,actors_culled,entities,entities_drawn,entities_culled,particles_drawn,particles_culled,heap,heap_delta\n");
+        write(row);
+    }
+
+    public void stopRecording() {
+        if (trace == null) {
+            return;
+        }
+        try {
+            trace.close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error closing frame trace " + traceFile, e);
+        } finally {
+            trace = null;
+        }
+        Gdx.app.log("FrameProfiler", "Frame trace written to " + traceFile.file().getAbsolutePath());
+    }
+
+    // Starts a new trace in local storage, or ends the current one
+    public void toggleRecording() {
+        if (isRecording()) {
+            stopRecording();
+        } else {
+            startRecording(Gdx.files.local("profile/frames-" + TimeUtils.millis() + ".csv"));
+        }
+    }
+
+    private void writeRow(float delta, int actors, int entities) {
+        row.setLength(0);
+        row.append(frame)
+                .append(',').append((long) (delta * 1000000))
+                .append(',').append(frameTime / 1000)
+                .append(',').append(steps);
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            row.append(',').append(sectionTime[i] / 1000);
+        }
+        row.append(',').append(RenderStats.renderCalls)
+                .append(',').append(actors)
+                .append(',').append(RenderStats.actorsDrawn)
+                .append(',').append(RenderStats.actorsCulled)
+                .append(',').append(entities)
+                .append(',').append(RenderStats.entitiesDrawn)
+                .append(',').append(RenderStats.entitiesCulled)
+                .append(',').append(RenderStats.particlesDrawn)
+                .append(',').append(RenderStats.particlesCulled)
+                .append(',').append(heap)
+                .append(',').append(heapDelta)
+                .append('\n');
+        write(row);
+    }
+
+    private void write(CharSequence text) {
+        try {
+            trace.append(text);
+        } catch (IOException e) {
+            trace = null;
+            throw new GdxRuntimeException("Error writing frame trace " + traceFile, e);
+        }
+    }
+
+    private void buildSummary(int actors, int entities) {
+        summary.setLength(0);
+        summary.append("frame: ").append(sumFrameTime / sumFrames / 1000)
+                .append(" us avg, ").append(maxFrameTime / 1000).append(" us max");
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            summary.append('\n').append(sectionNames[i]).append(": ")
+                    .append(sumSectionTime[i] / sumFrames / 1000).append(" us");
+        }
+        summary.append("\ndraw calls: ").append(RenderStats.renderCalls)
+                .append("\nactors drawn/culled: ").append(RenderStats.actorsDrawn)
+                .append('/').append(RenderStats.actorsCulled).append(" of ").append(actors)
+                .append("\nentities drawn/culled: ").append(RenderStats.entitiesDrawn)
+                .append('/').append(RenderStats.entitiesCulled).append(" of ").append(entities)
+                .append("\nparticles drawn/culled: ").append(RenderStats.particlesDrawn)
+                .append('/').append(RenderStats.particlesCulled)
+                .append("\nheap: ").append(heap / 1024).append(" KB, +")
+                .append(sumAllocated / sumFrames / 1024).append(" KB/frame, ")
+                .append(collections).append(" gc");
+        if (trace != null) {
+            summary.append("\nrecording ").append(traceFile.name());
+        }
+        summaryChanged = true;
+    }
+
+    private void resetSummary() {
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sumSectionTime[i] = 0;
+        }
+        sumFrameTime = 0;
+        maxFrameTime = 0;
+        sumFrames = 0;
+        sumAllocated = 0;
+        collections = 0;
+        summaryTimer = 0;
+    }
+}
@@ -2,207 +2,339 @@ package com.mbrsv.tq;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Keys;
-import com.badlogic.gdx.graphics.Camera;
-import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation.PlayMode;
-import com.badlogic.gdx.maps.MapObject;
-import com.badlogic.gdx.maps.MapObjects;
-import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
-import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Rectangle;
-
-import java.util.ArrayList;
 
 public class GameScreen extends BaseScreen {
 
     private PhysicsActor player;
     private BaseActor baseCoin;
-    private ArrayList<BaseActor> coinList;
-    private ArrayList<BaseActor> wallList;
-    private ArrayList<BaseActor> removeList;
-
-    private int tileSize = 32;
-    private int tileCountWidth = 30;
-    private int tileCountHeight = 30;
+    private GameWorld world;
+    private WorldStreamer streamer;
 
-    final int mapWidth = tileSize * tileCountWidth;
-    final int mapHeight = tileSize * tileCountHeight;
+    private int mapWidth;
+    private int mapHeight;
 
     private TiledMap tiledMap;
-    private OrthographicCamera tiledCamera;
-    private OrthogonalTiledMapRenderer tiledMapRenderer;
-    private int[] backgroundLayers = { 0, 1 };
-    private int[] foregroundLayers = { 2 };
+    private ChunkedMapRenderer tiledMapRenderer;
+    //camera version the renderer's visible chunks were computed for
+    private int tilesViewVersion;
+    //camera version at the previous idle check
+    private int idleViewVersion;
+    //static, since create() runs from the BaseScreen constructor before instance initializers
+    private static final int[] backgroundLayers = { 0, 1 };
+    private static final int[] foregroundLayers = { 2 };
+    private static final String mapFile = "map01.tmx";
+    private static final String levelFile = "map01.lvl";
+    //tiles per side of a streamed chunk, the same as a renderer chunk so one never spans two;
+    //public for replays, which must split walls at the same chunk borders
+    public static final int chunkTiles = 16;
+    private int backgroundGroup;
+    private int foregroundGroup;
+    private ActionInput input;
+    //the session since the level started (or a save was loaded), saved with F5 for ReplayRunner
+    private InputLog inputLog;
+    //the level as it started, for instant restarts, and the quick save slot
+    private WorldSnapshot startSnapshot;
+    private WorldSnapshot quickSave;
+    private static final String quickSaveFile = "saves/quick.tqs";
+
+    //effects, drawn between the stage and the foreground tiles
+    private ParticleSystem particles;
+    private ParticleEmitter coinBurst;
+    private ParticleEmitter dust;
+    private Texture particleTexture;
+    //distance walked since the last puff of dust
+    private float dustDistance;
 
     public GameScreen(BaseGame g) { super(g); }
 
+    // Everything create() needs; the loading screen fetches these in the background first
+    public static void queueAssets(AssetCache assets) {
+        if (hasCompiledLevel()) {
+            assets.queue(levelFile, LevelData.class);
+        } else {
+            assets.queue(mapFile, TiledMap.class);
+        }
+        assets.queue("actors.atlas", TextureAtlas.class);
+    }
+
+    // The compiled level (desktop:compileLevels) loads without parsing any XML;
+    // the TMX map is the fallback while editing
+    private static boolean hasCompiledLevel() {
+        return Gdx.files.internal(levelFile).exists();
+    }
+
     @Override
     public void create() {
+        //actor images come from one packed atlas, so the stage draws from a single texture
+        assets.setAtlas("actors.atlas");
+
         //initialize player
         player = new PhysicsActor();
 
         //player animation
         float t = 0.15f;
-        player.storeAnimation("down", GameUtils.parseSpriteSheet(
+        int walkDown = player.storeAnimation("down", GameUtils.parseSpriteSheet(assets,
                 "player.png", 3, 4, new int[] { 0, 1, 2 }, t, PlayMode.LOOP_PINGPONG));
-        player.storeAnimation("left", GameUtils.parseSpriteSheet(
+        int walkLeft = player.storeAnimation("left", GameUtils.parseSpriteSheet(assets,
                 "player.png", 3, 4, new int[] { 3, 4, 5 }, t, PlayMode.LOOP_PINGPONG));
-        player.storeAnimation("right", GameUtils.parseSpriteSheet(
+        int walkRight = player.storeAnimation("right", GameUtils.parseSpriteSheet(assets,
                 "player.png", 3, 4, new int[] { 6, 7, 8 }, t, PlayMode.LOOP_PINGPONG));
-        player.storeAnimation("up", GameUtils.parseSpriteSheet(
+        int walkUp = player.storeAnimation("up", GameUtils.parseSpriteSheet(assets,
                 "player.png", 3, 4, new int[] { 9, 10, 11 }, t, PlayMode.LOOP_PINGPONG));
         player.setSize(48, 48);
 
         player.setEllipseBoundary();
-        mainStage.addActor(player);
 
-        //initialize base coin; additional coins will be cloned from it later
+        //initialize base coin; coins share its texture and boundary through the entity store
         baseCoin = new BaseActor();
-        baseCoin.setTexture(new Texture(Gdx.files.internal("coin.png")));
+        baseCoin.setTextureRegion(assets.getRegion("coin.png"));
         baseCoin.setEllipseBoundary();
-        coinList = new ArrayList<BaseActor>();
-
-        wallList = new ArrayList<BaseActor>();
-
-        removeList = new ArrayList<BaseActor>();
-
-        //set up tile map, renderer, camera
-        tiledMap = new TmxMapLoader().load("map01.tmx");
-        tiledMapRenderer = new OrthogonalTiledMapRenderer(tiledMap);
-        tiledCamera = new OrthographicCamera();
-        tiledCamera.setToOrtho(false, viewWidth, viewHeight);
-        tiledCamera.update();
-
-        //retrieve geometric data from the tilemap
-        MapObjects objects = tiledMap.getLayers().get("ObjectData").getObjects();
-        for (MapObject object : objects) {
-            String name = object.getName();
-
-            RectangleMapObject rectangleMapObject = (RectangleMapObject) object;
-            Rectangle r = rectangleMapObject.getRectangle();
-
-            switch (name) {
-                case "player":
-                    player.setPosition(r.x, r.y);
-                    break;
-                case "coin":
-                    BaseActor coin = baseCoin.clone();
-                    coin.setPosition(r.x, r.y);
-                    mainStage.addActor(coin);
-                    coinList.add(coin);
-                    break;
-                default:
-                    System.err.println("Unknown tilemap object " + name);
-            }
+
+        //gameplay state (player spawn, coins and walls) and the tile layers
+        //compiled levels stream their tiles with the rest of each chunk;
+        //a TMX map is resident already, so only its walls and coins are streamed
+        LevelData level;
+        final boolean streamTiles = hasCompiledLevel();
+        if (streamTiles) {
+            level = assets.get(levelFile, LevelData.class);
+            tiledMap = level.toTiledMap(assets, false);
+        } else {
+            tiledMap = assets.get(mapFile, TiledMap.class);
+            level = LevelData.fromTiledMap(tiledMap);
         }
+        //compiled levels are merged already, so this only costs a scan of the grid there
+        int authoredWalls = WallMerger.merge(level, true);
+        Gdx.app.log("GameScreen", "walls: " + authoredWalls + " -> " + level.getWallCount());
+
+        //set up renderer; it draws through the mainStage camera
+        tiledMapRenderer = new ChunkedMapRenderer(tiledMap, chunkTiles, 64);
+        backgroundGroup = tiledMapRenderer.addLayerGroup(backgroundLayers);
+        foregroundGroup = tiledMapRenderer.addLayerGroup(foregroundLayers);
+        tilesViewVersion = -1;
+        idleViewVersion = -1;
 
-        //retrieve data that represents solid walls
-        objects = tiledMap.getLayers().get("PhysicsData").getObjects();
-        for (MapObject object : objects) {
-            RectangleMapObject rectangleMapObject = (RectangleMapObject) object;
-            Rectangle r = rectangleMapObject.getRectangle();
-
-            BaseActor solid = new BaseActor();
-            solid.setPosition(r.x, r.y);
-            solid.setSize(r.width, r.height);
-            solid.setRectangleBoundary();
-            wallList.add(solid);
+        mapWidth = level.getWidth();
+        mapHeight = level.getHeight();
+        world = GameWorld.streamed(level, player, baseCoin);
+        world.setJobScheduler(game.jobs);
+        world.setWalkAnimations(walkDown, walkLeft, walkRight, walkUp);
+        world.getRoot().setCullingArea(viewBounds);
+        world.getCoins().setCullingArea(viewBounds);
+        mainStage.addActor(world.getRoot());
+
+        streamer = new WorldStreamer(world, new LevelChunkSource(level, chunkTiles), chunkTiles);
+        if (streamTiles) {
+            streamer.setChunkListener(new WorldStreamer.ChunkListener() {
+                @Override
+                public void chunkLoaded(WorldChunk chunk) {
+                    LevelData.setTiles(tiledMap, chunk);
+                    tiledMapRenderer.invalidate(chunk.tileX, chunk.tileY, chunk.tileWidth, chunk.tileHeight);
+                }
+
+                @Override
+                public void chunkUnloaded(WorldChunk chunk) {
+                    LevelData.clearTiles(tiledMap, chunk);
+                    tiledMapRenderer.invalidate(chunk.tileX, chunk.tileY, chunk.tileWidth, chunk.tileHeight);
+                }
+            });
         }
+        //the camera lags a little behind the player, and stays inside the map
+        cameraController.setBounds(0, 0, mapWidth, mapHeight);
+        cameraController.setDeadZone(48, 32);
+        cameraController.setSmoothing(10);
+        cameraController.snapTo(player.getX() + player.getOriginX(), player.getY() + player.getOriginY());
+        updateViewBounds();
+        streamer.preload(viewBounds);
+
+        input = new ActionInput();
+        inputLog = new InputLog(streamTiles ? levelFile : mapFile, getStepTime(), 60);
+        startSnapshot = new WorldSnapshot();
+        world.save(startSnapshot);
+        quickSave = new WorldSnapshot();
+
+        createParticles();
+    }
+
+    private void createParticles() {
+        //a soft white dot, tinted per emitter; all emitters share it, so they draw in one call
+        Pixmap pixmap = new Pixmap(8, 8, Pixmap.Format.RGBA8888);
+        pixmap.setColor(Color.WHITE);
+        pixmap.fillCircle(4, 4, 3);
+        particleTexture = new Texture(pixmap);
+        pixmap.dispose();
+        TextureRegion dot = new TextureRegion(particleTexture);
+
+        particles = new ParticleSystem(viewBounds);
+        coinBurst = particles.add(new ParticleEmitter(dot, 2048));
+        coinBurst.setSpeed(80, 220);
+        coinBurst.setLifetime(0.3f, 0.7f);
+        coinBurst.setSize(10, 2);
+        coinBurst.setDrag(3);
+        coinBurst.setColor(1, 0.85f, 0.2f, 1);
+        dust = particles.add(new ParticleEmitter(dot, 1024));
+        dust.setSpeed(10, 40);
+        dust.setAngle(45, 135);
+        dust.setLifetime(0.3f, 0.6f);
+        dust.setSize(6, 14);
+        dust.setDrag(4);
+        dust.setColor(0.6f, 0.5f, 0.4f, 0.6f);
+        dustDistance = 0;
+
+        final float coinWidth = world.getCoins().getEntityWidth();
+        final float coinHeight = world.getCoins().getEntityHeight();
+        world.setCoinListener(new GameWorld.CoinListener() {
+            @Override
+            public void coinCollected(float x, float y, int id) {
+                particles.emit(coinBurst, x + coinWidth / 2, y + coinHeight / 2, 24);
+            }
+        });
+    }
+
+    // Puts the world into a saved state without reloading anything
+    private void restore(WorldSnapshot snapshot) {
+        world.restore(snapshot);
+        particles.clear();
+        input.clear();
+        cameraController.snapTo(player.getX() + player.getOriginX(), player.getY() + player.getOriginY());
     }
 
     @Override
     public void update(float delta) {
-        //player movement
-        float playerSpeed = 500;
-        player.setVelocityXY(0, 0);
-
-        //input handing
-        //set the corresponding animation to the player whenever an arrow key is pressed
-        //also, the animation is either paused or started, depending on the speed of the player
-        if (Gdx.input.isKeyPressed(Keys.LEFT)) {
-            player.setVelocityXY(-playerSpeed, 0);
-            player.setActiveAnimation("left");
-        }
-        if (Gdx.input.isKeyPressed(Keys.RIGHT)) {
-            player.setVelocityXY(playerSpeed, 0);
-            player.setActiveAnimation("right");
-        }
-        if (Gdx.input.isKeyPressed(Keys.UP)) {
-            player.setVelocityXY(0, playerSpeed);
-            player.setActiveAnimation("up");
-        }
-        if (Gdx.input.isKeyPressed(Keys.DOWN)) {
-            player.setVelocityXY(0, -playerSpeed);
-            player.setActiveAnimation("down");
-        }
-        if (player.getSpeed() < 1) {
-            player.pauseAnimation();
-            player.setAnimationFrame(1);
-        } else {
-            player.startAnimation();
-        }
+        //one sample per tick is everything gameplay sees of the keyboard, and what gets recorded
+        int actions = input.sample();
+        inputLog.record(actions);
+        world.setPlayerInput(actions);
 
-        //collision detection
-        for (BaseActor wall : wallList) {
-            player.overlaps(wall, true);
-        }
+        //bring in chunks around the last drawn view before anything collides
+        streamer.update(viewBounds, player.getBoundingRectangle());
+        world.update(delta);
+        inputLog.recordChecksum(world);
 
-        for (BaseActor coin : coinList) {
-            if (player.overlaps(coin, false)) {
-                removeList.add(coin);
+        //a puff of dust at the player's feet every so many pixels walked
+        if (player.getSpeed() >= 1) {
+            dustDistance += player.getSpeed() * delta;
+            if (dustDistance >= 40) {
+                dustDistance = 0;
+                particles.emit(dust, player.getX() + player.getWidth() / 2, player.getY() + 4, 4);
             }
         }
+        particles.update(delta);
+    }
 
-        //clean the removeList
-        for (BaseActor ba : removeList) {
-            ba.destroy();
+    //follows the interpolated player, so it runs at draw time rather than in update
+    @Override
+    protected void updateView(float delta) {
+        cameraController.follow(player.getX() + player.getOriginX(),
+                player.getY() + player.getOriginY(), delta);
+        //visible chunks only change when the camera does
+        if (tilesViewVersion != cameraController.getVersion()) {
+            tilesViewVersion = cameraController.getVersion();
+            tiledMapRenderer.setView(cameraController.getCamera());
         }
+    }
 
-        //camera adjustment
-        Camera mainCamera = mainStage.getCamera();
-
-        //center camera on player
-        mainCamera.position.x = player.getX() + player.getOriginX();
-        mainCamera.position.y = player.getY() + player.getOriginY();
-
-        //bound camera to layout
-        mainCamera.position.x = MathUtils.clamp(
-                mainCamera.position.x, viewWidth / 2, mapWidth - viewWidth / 2);
-        mainCamera.position.y = MathUtils.clamp(
-                mainCamera.position.y, viewHeight / 2, mapHeight - viewHeight / 2);
-        mainCamera.update();
-
-        //adjust tilemap camera to stay in sync with main camera
-        tiledCamera.position.x = mainCamera.position.x;
-        tiledCamera.position.y = mainCamera.position.y;
-        tiledCamera.update();
-        tiledMapRenderer.setView(tiledCamera);
+    @Override
+    protected void drawMain() {
+        profiler.begin(FrameProfiler.TILES);
+        tiledMapRenderer.render(backgroundGroup);
+        profiler.end(FrameProfiler.TILES);
+        profiler.begin(FrameProfiler.STAGE_DRAW);
+        mainStage.draw();
+        profiler.end(FrameProfiler.STAGE_DRAW);
+        RenderStats.countBatch(mainStage.getBatch());
+        if (!particles.isEmpty()) {
+            profiler.begin(FrameProfiler.PARTICLES);
+            Batch batch = mainStage.getBatch();
+            batch.setProjectionMatrix(cameraController.getCamera().combined);
+            particles.draw(batch);
+            RenderStats.countBatch(batch);
+            profiler.end(FrameProfiler.PARTICLES);
+        }
+        profiler.begin(FrameProfiler.TILES);
+        tiledMapRenderer.render(foregroundGroup);
+        profiler.end(FrameProfiler.TILES);
     }
 
+    // Nothing to redraw once the camera has settled and the game is paused, or every mover
+    // stands still and unanimated with no chunks on their way and no particles left; any key
+    // press wakes the screen again
     @Override
-    public void render(float delta) {
-        uiStage.act(delta);
-        if (!isPaused()) {
-            mainStage.act(delta);
-            update(delta);
+    protected boolean isIdle() {
+        int viewVersion = cameraController.getVersion();
+        boolean cameraMoved = viewVersion != idleViewVersion;
+        idleViewVersion = viewVersion;
+        if (cameraMoved) {
+            return false;
         }
-        Gdx.gl.glClearColor(0, 0, 0, 0);
-        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-        tiledMapRenderer.render(backgroundLayers);
-        mainStage.draw();
-        tiledMapRenderer.render(foregroundLayers);
-        uiStage.draw();
+        return isPaused() || !world.isMoving() && !world.getCoins().isMoving()
+                && streamer.getPendingChunks() == 0 && particles.isEmpty();
+    }
+
+    @Override
+    protected int getEntityCount() {
+        return world.getCoins().size();
+    }
+
+    @Override
+    public void dispose() {
+        streamer.dispose();
+        tiledMapRenderer.dispose();
+        particleTexture.dispose();
+        super.dispose();
     }
 
     @Override
     public boolean keyDown(int keycode) {
         if (keycode == Keys.P) togglePaused();
-        if (keycode == Keys.R) game.setScreen(new GameScreen(game));
-        return false;
+        if (keycode == Keys.F4) {
+            //single-threaded gameplay, for debugging
+            game.jobs.setParallel(!game.jobs.isParallel());
+            Gdx.app.log("GameScreen", "parallel jobs: " + game.jobs.isParallel());
+            return true;
+        }
+        if (keycode == Keys.F5) {
+            FileHandle file = Gdx.files.local("replays/session-" + System.currentTimeMillis() + ".tqin");
+            inputLog.write(file);
+            Gdx.app.log("GameScreen", "saved " + inputLog.getTickCount() + " ticks to " + file.path());
+            return true;
+        }
+        if (keycode == Keys.R) {
+            restore(startSnapshot);
+            inputLog.restart(null);
+            return true;
+        }
+        if (keycode == Keys.F6) {
+            world.save(quickSave);
+            quickSave.write(Gdx.files.local(quickSaveFile));
+            Gdx.app.log("GameScreen", "saved " + quickSave.size() + " bytes to " + quickSaveFile);
+            return true;
+        }
+        if (keycode == Keys.F7) {
+            FileHandle file = Gdx.files.local(quickSaveFile);
+            if (file.exists()) {
+                quickSave.read(file);
+                restore(quickSave);
+                inputLog.restart(quickSave);
+            }
+            return true;
+        }
+        if (input.keyDown(keycode)) {
+            return true;
+        }
+        return super.keyDown(keycode);
+    }
+
+    @Override
+    public boolean keyUp(int keycode) {
+        return input.keyUp(keycode) || super.keyUp(keycode);
     }
 }
@@ -1,8 +1,5 @@
 package com.mbrsv.tq;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Animation.PlayMode;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -11,24 +8,10 @@ import com.badlogic.gdx.utils.Array;
 public class GameUtils {
 
     // Creates an Animation from a single sprite sheet
-    public static Animation parseSpriteSheet(String fileName, int frameCols, int frameRows,
-                                             float frameDuration, PlayMode mode) {
-        Texture t = new Texture(Gdx.files.internal(fileName), true);
-        t.setFilter(TextureFilter.Linear, TextureFilter.Linear);
-
-        int frameWidth = t.getWidth() / frameCols;
-        int frameHeight = t.getHeight() / frameRows;
-
-        TextureRegion[][] temp = TextureRegion.split(t, frameWidth, frameHeight);
-        TextureRegion[] frames = new TextureRegion[frameCols * frameRows];
-
-        int index = 0;
-        for (int i = 0; i < frameRows; i++) {
-            for (int j = 0; j < frameCols; j++) {
-                frames[index] = temp[i][j];
-                index++;
-            }
-        }
+    // The sheet texture and its frames are shared through the asset cache
+    public static Animation parseSpriteSheet(AssetCache assets, String fileName, int frameCols,
+                                             int frameRows, float frameDuration, PlayMode mode) {
+        TextureRegion[] frames = assets.getFrames(fileName, frameCols, frameRows);
 
         Array<TextureRegion> framesArray = new Array<TextureRegion>(frames);
 
@@ -37,24 +20,10 @@ public class GameUtils {
 
     // Creates an animation from a single sprite sheet
     // with a subset of the frames, specified by an array
-    public static Animation parseSpriteSheet(String fileName, int frameCols, int frameRows,
-                                             int[] frameIndices, float frameDuration, PlayMode mode) {
-        Texture t = new Texture(Gdx.files.internal(fileName), true);
-        t.setFilter(TextureFilter.Linear, TextureFilter.Linear);
-
-        int frameWidth = t.getWidth() / frameCols;
-        int frameHeight = t.getHeight() / frameRows;
-
-        TextureRegion[][] temp = TextureRegion.split(t, frameWidth, frameHeight);
-        TextureRegion[] frames = new TextureRegion[frameCols * frameRows];
-
-        int index = 0;
-        for (int i = 0; i < frameRows; i++) {
-            for (int j = 0; j < frameCols; j++) {
-                frames[index] = temp[i][j];
-                index++;
-            }
-        }
+    public static Animation parseSpriteSheet(AssetCache assets, String fileName, int frameCols,
+                                             int frameRows, int[] frameIndices, float frameDuration,
+                                             PlayMode mode) {
+        TextureRegion[] frames = assets.getFrames(fileName, frameCols, frameRows);
 
         Array<TextureRegion> framesArray = new Array<TextureRegion>();
         for (int n = 0; n < frameIndices.length; n++) {
@@ -67,15 +36,14 @@ public class GameUtils {
 
     // Creates an Animation from a set of image files.
     // Name format: fileNamePrefix + N + fileNameSuffix; 0 <= N < frameCount
-    public static Animation parseImageFiles(String fileNamePrefix, String fileNameSuffix,
-                                            int frameCount, float frameDuration, PlayMode mode) {
+    public static Animation parseImageFiles(AssetCache assets, String fileNamePrefix,
+                                            String fileNameSuffix, int frameCount,
+                                            float frameDuration, PlayMode mode) {
         TextureRegion[] frames = new TextureRegion[frameCount];
 
         for (int n = 0; n < frameCount; n++) {
             String fileName = fileNamePrefix + n + fileNameSuffix;
-            Texture t = new Texture(Gdx.files.internal(fileName));
-            t.setFilter(TextureFilter.Linear, TextureFilter.Linear);
-            frames[n] = new TextureRegion(t);
+            frames[n] = assets.getRegion(fileName);
         }
         Array<TextureRegion> framesArray = new Array<TextureRegion>(frames);
 
@@ -0,0 +1,436 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.nio.ByteBuffer;
+
+// Gameplay state of one level: the player, walls and coins and the rules between them.
+// It has no rendering state, so the same simulation runs inside GameScreen (whose stage acts
+// and draws getRoot()) and headless, where step() advances everything on its own.
+public class GameWorld {
+
+    // Told about each coin the player collects, at the coin's position, during update()
+    public interface CoinListener {
+        void coinCollected(float x, float y, int id);
+    }
+
+    private final LevelData level;
+    private final Group root;
+    private final PhysicsActor player;
+    private final EntityStore coins;
+    private final ActorList<BaseActor> walls;
+    private final SpatialGrid wallGrid;
+    //tile-aligned walls as solid cells, for movers with simple shapes
+    private final SolidGrid solidCells;
+    //the remaining walls, which always need polygon collision
+    private final SpatialGrid looseWallGrid;
+    private final IntArray nearbyCoins;
+    private int coinsCollected;
+    private CoinListener coinListener;
+    //spawn ids of collected coins, so coins stay collected when their chunk is reloaded
+    private final Bits collectedCoins;
+    //whether all coins and walls were added up front, or come from streamed chunks
+    private final boolean populated;
+    private final Array<WorldChunk> chunks;
+
+    //moving actors, integrated and collided with walls as one job per index range
+    private final ActorList<PhysicsActor> movers;
+    //wall candidates per mover index, so each job writes only its own arrays
+    private final Array<Array<BaseActor>> moverCandidates;
+    private final JobScheduler.Job moveJob;
+
+    //actor-versus-actor contacts between movers, found after they have moved
+    private final CollisionWorld bodies;
+    public static final int PLAYER_LAYER = 1;
+    public static final int MOVER_LAYER = 2;
+
+    private static final float playerSpeed = 500;
+    //player animation indices for down, left, right and up; null in headless worlds
+    private int[] walkAnimations;
+    private JobScheduler jobs;
+    private float stepDelta;
+
+    // player and coinTemplate need their size and boundary set; the world positions them
+    public GameWorld(LevelData level, PhysicsActor player, BaseActor coinTemplate) {
+        this(level, player, coinTemplate, true);
+    }
+
+    // A world without walls or coins; a WorldStreamer adds them chunk by chunk
+    public static GameWorld streamed(LevelData level, PhysicsActor player, BaseActor coinTemplate) {
+        return new GameWorld(level, player, coinTemplate, false);
+    }
+
+    private GameWorld(LevelData level, PhysicsActor player, BaseActor coinTemplate, boolean populate) {
+        this.level = level;
+        this.player = player;
+        this.populated = populate;
+        chunks = new Array<WorldChunk>(false, 16);
+        int tileSize = level.tileSize;
+        int width = level.getWidth();
+        int height = level.getHeight();
+
+        root = new Group();
+        //cover the whole level so the stage never culls the group itself
+        root.setSize(width, height);
+        root.setTransform(false);
+
+        //coins share the template's region and boundary through the entity store
+        coins = new EntityStore(coinTemplate, tileSize, width, height);
+        if (populate) {
+            for (int i = 0; i < level.coins.size; i += 2) {
+                coins.add(level.coins.get(i), level.coins.get(i + 1), i / 2);
+            }
+        }
+        root.addActor(coins);
+        nearbyCoins = new IntArray();
+        collectedCoins = new Bits(level.getCoinCount());
+
+        //walls are indexed on the tile grid, so collision only checks nearby walls
+        walls = new ActorList<BaseActor>();
+        wallGrid = new SpatialGrid(tileSize, width, height);
+        solidCells = new SolidGrid(level.tileCountWidth, level.tileCountHeight, tileSize);
+        looseWallGrid = new SpatialGrid(tileSize, width, height);
+        if (populate) {
+            for (int i = 0; i < level.walls.size; i += 4) {
+                addWall(level.walls.get(i), level.walls.get(i + 1),
+                        level.walls.get(i + 2), level.walls.get(i + 3));
+            }
+        }
+
+        movers = new ActorList<PhysicsActor>();
+        moverCandidates = new Array<Array<BaseActor>>();
+        moveJob = new JobScheduler.Job() {
+            @Override
+            public void run(int start, int end) {
+                moveRange(start, end);
+            }
+        };
+        jobs = null;
+        walkAnimations = null;
+        bodies = new CollisionWorld();
+        coinListener = null;
+
+        player.setPosition(level.playerX, level.playerY);
+        addMover(player, PLAYER_LAYER, -1);
+
+        coinsCollected = 0;
+    }
+
+    // Runs mover updates on this scheduler's threads; null runs them all on the calling thread
+    public void setJobScheduler(JobScheduler scheduler) {
+        jobs = scheduler;
+    }
+
+    // Lets setPlayerInput pick the player's walk animation (indices from storeAnimation)
+    public void setWalkAnimations(int down, int left, int right, int up) {
+        walkAnimations = new int[] { down, left, right, up };
+    }
+
+    // Player movement for the next tick from an ActionInput mask. Directions checked later win,
+    // so pressing two at once moves along the last of left, right, up, down.
+    public void setPlayerInput(int actions) {
+        player.setVelocityXY(0, 0);
+        int walk = -1;
+        if ((actions & ActionInput.LEFT) != 0) {
+            player.setVelocityXY(-playerSpeed, 0);
+            walk = 1;
+        }
+        if ((actions & ActionInput.RIGHT) != 0) {
+            player.setVelocityXY(playerSpeed, 0);
+            walk = 2;
+        }
+        if ((actions & ActionInput.UP) != 0) {
+            player.setVelocityXY(0, playerSpeed);
+            walk = 3;
+        }
+        if ((actions & ActionInput.DOWN) != 0) {
+            player.setVelocityXY(0, -playerSpeed);
+            walk = 0;
+        }
+        if (walkAnimations == null) {
+            return;
+        }
+        if (walk != -1) {
+            player.setActiveAnimation(walkAnimations[walk]);
+        }
+        //the animation only plays while the player is moving
+        if (player.getSpeed() < 1) {
+            player.pauseAnimation();
+            player.setAnimationFrame(1);
+        } else {
+            player.startAnimation();
+        }
+    }
+
+    // Adds a moving actor; the world integrates it and resolves it against walls every update
+    public void addMover(PhysicsActor mover) {
+        addMover(mover, MOVER_LAYER, -1);
+    }
+
+    // layer and mask pick which other movers it reports contacts with (see CollisionWorld)
+    public void addMover(PhysicsActor mover, int layer, int mask) {
+        //movers may be fast enough to skip thin walls in one step, so sweep their movement
+        mover.setContinuousCollision(wallGrid);
+        mover.setManaged(true);
+        root.addActor(mover);
+        movers.add(mover);
+        bodies.add(mover, layer, mask);
+    }
+
+    public void removeMover(PhysicsActor mover) {
+        bodies.remove(mover);
+        movers.remove(mover);
+        mover.setManaged(false);
+        mover.setContinuousCollision(null);
+        mover.remove();
+    }
+
+    // Whether any mover, the player included, is still moving or playing an animation
+    public boolean isMoving() {
+        for (int i = 0; i < movers.size(); i++) {
+            PhysicsActor mover = movers.get(i);
+            if (mover.getSpeed() >= 1 || mover.isAnimating()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void setCoinListener(CoinListener listener) {
+        coinListener = listener;
+    }
+
+    // Told when movers start and stop touching each other, on the updating thread
+    public void setContactListener(CollisionWorld.ContactListener listener) {
+        bodies.setContactListener(listener);
+    }
+
+    private BaseActor addWall(float x, float y, float width, float height) {
+        BaseActor solid = new BaseActor();
+        solid.setPosition(x, y);
+        solid.setSize(width, height);
+        solid.setRectangleBoundary();
+        solid.freezeBoundary();
+        walls.add(solid);
+        wallGrid.insert(solid);
+        if (!solidCells.fill(x, y, width, height)) {
+            looseWallGrid.insert(solid);
+        }
+        return solid;
+    }
+
+    // Installs a streamed chunk's walls and its coins that have not been collected yet.
+    // Call between updates, never while movers are running.
+    public void addChunk(WorldChunk chunk) {
+        chunks.add(chunk);
+        for (int i = 0; i < chunk.walls.size; i += 4) {
+            chunk.wallActors.add(addWall(chunk.walls.get(i), chunk.walls.get(i + 1),
+                    chunk.walls.get(i + 2), chunk.walls.get(i + 3)));
+        }
+        for (int i = 0; i < chunk.coinIds.size; i++) {
+            int id = chunk.coinIds.get(i);
+            if (!collectedCoins.get(id)) {
+                coins.add(chunk.coins.get(2 * i), chunk.coins.get(2 * i + 1), id);
+            }
+        }
+    }
+
+    // Takes out everything addChunk installed for the chunk
+    public void removeChunk(WorldChunk chunk) {
+        chunks.removeValue(chunk, true);
+        for (int i = 0; i < chunk.wallActors.size; i++) {
+            BaseActor solid = chunk.wallActors.get(i);
+            wallGrid.remove(solid);
+            looseWallGrid.remove(solid);
+            //chunks never share cells, since their walls are clipped to the chunk
+            solidCells.clear(solid.getX(), solid.getY(), solid.getWidth(), solid.getHeight());
+            walls.remove(solid);
+        }
+        chunk.wallActors.clear();
+        if (chunk.coinIds.size == 0) {
+            return;
+        }
+        for (int i = coins.size() - 1; i >= 0; i--) {
+            if (chunk.coinIds.contains(coins.getEntityId(i))) {
+                coins.remove(i);
+            }
+        }
+    }
+
+    // One full tick when no stage drives the actors (headless runs)
+    public void step(float delta) {
+        root.act(delta);
+        update(delta);
+        BaseActor.flushDestroyed();
+    }
+
+    // Movement, collision and pickup rules; runs after the actors have acted
+    public void update(float delta) {
+        //movers only change themselves and read the wall grid, so they can run in parallel;
+        //anything that changes shared state (coins, the scene graph) stays on this thread
+        while (moverCandidates.size < movers.size()) {
+            moverCandidates.add(new Array<BaseActor>());
+        }
+        stepDelta = delta;
+        if (jobs != null) {
+            jobs.run(movers.size(), 32, moveJob);
+        } else {
+            moveRange(0, movers.size());
+        }
+        bodies.update();
+
+        //collect coins; remove from the highest index down, since removal swaps in the last coin
+        coins.query(player.getBoundingRectangle(), nearbyCoins);
+        nearbyCoins.sort();
+        for (int i = nearbyCoins.size - 1; i >= 0; i--) {
+            int coin = nearbyCoins.get(i);
+            if (coins.overlaps(coin, player)) {
+                collectedCoins.set(coins.getEntityId(coin));
+                if (coinListener != null) {
+                    coinListener.coinCollected(coins.getEntityX(coin), coins.getEntityY(coin),
+                            coins.getEntityId(coin));
+                }
+                coins.remove(coin);
+                coinsCollected++;
+            }
+        }
+    }
+
+    private void moveRange(int start, int end) {
+        for (int i = start; i < end; i++) {
+            PhysicsActor mover = movers.get(i);
+            mover.integrate(stepDelta);
+            //collision detection, only against walls in the cells the mover touches;
+            //unrotated boxes and circles resolve against grid walls without polygon math
+            Array<BaseActor> nearby = moverCandidates.get(i);
+            if (solidCells.supports(mover)) {
+                solidCells.resolve(mover);
+                looseWallGrid.query(mover.getBoundingRectangle(), nearby);
+            } else {
+                wallGrid.query(mover.getBoundingRectangle(), nearby);
+            }
+            for (int n = 0; n < nearby.size; n++) {
+                mover.overlaps(nearby.get(n), true);
+            }
+        }
+    }
+
+    // Hash of the gameplay state (movers and collected coins), for comparing a replay
+    // with the recorded session; equal states on any device give equal checksums
+    public int checksum() {
+        int hash = coinsCollected;
+        for (int i = 0; i < movers.size(); i++) {
+            PhysicsActor mover = movers.get(i);
+            hash = 31 * hash + Float.floatToIntBits(mover.getX());
+            hash = 31 * hash + Float.floatToIntBits(mover.getY());
+            hash = 31 * hash + Float.floatToIntBits(mover.getVelocityX());
+            hash = 31 * hash + Float.floatToIntBits(mover.getVelocityY());
+        }
+        return 31 * hash + collectedCoins.hashCode();
+    }
+
+    // Writes the gameplay state into the snapshot's buffer, reusing it
+    public void save(WorldSnapshot snapshot) {
+        ByteBuffer buffer = snapshot.beginWrite(32 + 4 * level.getCoinCount() + 48 * movers.size());
+        buffer.putInt(coinsCollected);
+        //collected ids, with their count filled in afterwards
+        int countPosition = buffer.position();
+        buffer.putInt(0);
+        int count = 0;
+        for (int id = collectedCoins.nextSetBit(0); id != -1; id = collectedCoins.nextSetBit(id + 1)) {
+            buffer.putInt(id);
+            count++;
+        }
+        buffer.putInt(countPosition, count);
+
+        buffer.putInt(movers.size());
+        for (int i = 0; i < movers.size(); i++) {
+            PhysicsActor mover = movers.get(i);
+            buffer.putFloat(mover.getX());
+            buffer.putFloat(mover.getY());
+            buffer.putFloat(mover.getRotation());
+            buffer.putFloat(mover.getVelocityX());
+            buffer.putFloat(mover.getVelocityY());
+            buffer.putFloat(mover.getAccelerationX());
+            buffer.putFloat(mover.getAccelerationY());
+            buffer.putInt(mover.getActiveAnimation());
+            buffer.putFloat(mover.getAnimationTime());
+            buffer.put((byte) (mover.isAnimationPaused() ? 1 : 0));
+        }
+        snapshot.endWrite();
+    }
+
+    // Puts the world back into the saved state, in place. The movers must be the same ones
+    // (in the same order) as when it was saved; walls and the scene graph are left alone.
+    public void restore(WorldSnapshot snapshot) {
+        ByteBuffer buffer = snapshot.beginRead();
+        coinsCollected = buffer.getInt();
+        collectedCoins.clear();
+        int collected = buffer.getInt();
+        for (int i = 0; i < collected; i++) {
+            collectedCoins.set(buffer.getInt());
+        }
+
+        //coins come back from their spawns: the whole level, or the chunks installed now
+        coins.clear();
+        if (populated) {
+            for (int i = 0; i < level.coins.size; i += 2) {
+                if (!collectedCoins.get(i / 2)) {
+                    coins.add(level.coins.get(i), level.coins.get(i + 1), i / 2);
+                }
+            }
+        } else {
+            for (int c = 0; c < chunks.size; c++) {
+                WorldChunk chunk = chunks.get(c);
+                for (int i = 0; i < chunk.coinIds.size; i++) {
+                    int id = chunk.coinIds.get(i);
+                    if (!collectedCoins.get(id)) {
+                        coins.add(chunk.coins.get(2 * i), chunk.coins.get(2 * i + 1), id);
+                    }
+                }
+            }
+        }
+
+        int moverCount = buffer.getInt();
+        if (moverCount != movers.size()) {
+            throw new GdxRuntimeException("Snapshot has " + moverCount + " movers, world has " + movers.size());
+        }
+        for (int i = 0; i < moverCount; i++) {
+            PhysicsActor mover = movers.get(i);
+            mover.setPosition(buffer.getFloat(), buffer.getFloat());
+            mover.setRotation(buffer.getFloat());
+            mover.setVelocityXY(buffer.getFloat(), buffer.getFloat());
+            mover.setAccelerationXY(buffer.getFloat(), buffer.getFloat());
+            int animation = buffer.getInt();
+            float animationTime = buffer.getFloat();
+            boolean paused = buffer.get() != 0;
+            //headless worlds replay snapshots of animated movers without the animations
+            if (animation != -1 && animation < mover.getAnimationSet().size()) {
+                mover.setActiveAnimation(animation);
+                mover.setAnimationTime(animationTime);
+            }
+            if (paused) {
+                mover.pauseAnimation();
+            } else {
+                mover.startAnimation();
+            }
+            //no interpolation from where the mover was before
+            mover.savePreviousState();
+        }
+    }
+
+    public LevelData getLevel() { return level; }
+    public Group getRoot() { return root; }
+    public PhysicsActor getPlayer() { return player; }
+    public EntityStore getCoins() { return coins; }
+    public int getWallCount() { return walls.size(); }
+    public int getMoverCount() { return movers.size(); }
+    public CollisionWorld getBodies() { return bodies; }
+    public PhysicsActor getMover(int index) { return movers.get(index); }
+    public int getCoinsCollected() { return coinsCollected; }
+    public boolean isCoinCollected(int id) { return collectedCoins.get(id); }
+}
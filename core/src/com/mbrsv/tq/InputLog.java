@@ -0,0 +1,196 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Per-tick ActionInput masks of one session, run-length encoded, with a GameWorld checksum
+// every checksumInterval ticks. Sessions start from the level start or from a WorldSnapshot
+// (a loaded save game), which is stored with them. Replaying the masks with the same
+// step time on the same level must reproduce the checksums; a mismatch pins a divergence
+// down to one interval.
+public class InputLog {
+
+    public static final int MAGIC = 0x5451494E;
+    public static final int VERSION = 2;
+
+    private final String level;
+    private final float stepTime;
+    private final int checksumInterval;
+    //runs of equal masks: runActions[i] repeated runLengths[i] ticks
+    private final IntArray runActions;
+    private final IntArray runLengths;
+    private final IntArray checksums;
+    private int tickCount;
+    //state the session starts from; empty for the level start
+    private final WorldSnapshot start;
+
+    //replay position
+    private int readRun;
+    private int readInRun;
+
+    public InputLog(String level, float stepTime, int checksumInterval) {
+        this.level = level;
+        this.stepTime = stepTime;
+        this.checksumInterval = checksumInterval;
+        runActions = new IntArray();
+        runLengths = new IntArray();
+        checksums = new IntArray();
+        tickCount = 0;
+        start = new WorldSnapshot();
+        rewind();
+    }
+
+    // Drops what was recorded and starts a new session from this state; null for the level start
+    public void restart(WorldSnapshot from) {
+        runActions.clear();
+        runLengths.clear();
+        checksums.clear();
+        tickCount = 0;
+        if (from == null) {
+            start.clear();
+        } else {
+            start.copy(from);
+        }
+        rewind();
+    }
+
+    // Records the actions of the next tick; call before the world updates
+    public void record(int actions) {
+        int last = runActions.size - 1;
+        if (last >= 0 && runActions.get(last) == actions) {
+            runLengths.incr(last, 1);
+        } else {
+            runActions.add(actions);
+            runLengths.add(1);
+        }
+        tickCount++;
+    }
+
+    // Call after the world has updated; keeps a checksum at the end of every interval
+    public void recordChecksum(GameWorld world) {
+        if (tickCount % checksumInterval == 0) {
+            checksums.add(world.checksum());
+        }
+    }
+
+    public void rewind() {
+        readRun = 0;
+        readInRun = 0;
+    }
+
+    public boolean hasNext() {
+        return readRun < runActions.size;
+    }
+
+    // Actions of the next tick when replaying
+    public int next() {
+        int actions = runActions.get(readRun);
+        if (++readInRun == runLengths.get(readRun)) {
+            readRun++;
+            readInRun = 0;
+        }
+        return actions;
+    }
+
+    // Whether a checksum was recorded after the given tick, counting ticks from 1
+    public boolean hasChecksum(int tick) {
+        return tick % checksumInterval == 0 && tick / checksumInterval <= checksums.size;
+    }
+
+    public int getChecksum(int tick) {
+        return checksums.get(tick / checksumInterval - 1);
+    }
+
+    // State to restore before replaying, or null if the session starts with the level
+    public WorldSnapshot getStart() { return start.isEmpty() ? null : start; }
+    public String getLevel() { return level; }
+    public float getStepTime() { return stepTime; }
+    public int getChecksumInterval() { return checksumInterval; }
+    public int getTickCount() { return tickCount; }
+    public int getRunCount() { return runActions.size; }
+
+    public void write(FileHandle file) {
+        DataOutputStream out = new DataOutputStream(file.write(false, 8192));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(level);
+            out.writeFloat(stepTime);
+            out.writeInt(checksumInterval);
+            out.writeInt(tickCount);
+            out.writeInt(runActions.size);
+            for (int i = 0; i < runActions.size; i++) {
+                out.writeByte(runActions.get(i));
+                writeVarInt(out, runLengths.get(i));
+            }
+            out.writeInt(checksums.size);
+            for (int i = 0; i < checksums.size; i++) {
+                out.writeInt(checksums.get(i));
+            }
+            start.write(out);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing input log " + file, e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    public static InputLog read(FileHandle file) {
+        DataInputStream in = new DataInputStream(file.read(8192));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new GdxRuntimeException("Not an input log: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new GdxRuntimeException("Unsupported input log version " + version);
+            }
+            InputLog log = new InputLog(in.readUTF(), in.readFloat(), in.readInt());
+            log.tickCount = in.readInt();
+            int runCount = in.readInt();
+            log.runActions.ensureCapacity(runCount);
+            log.runLengths.ensureCapacity(runCount);
+            for (int i = 0; i < runCount; i++) {
+                log.runActions.add(in.readUnsignedByte());
+                log.runLengths.add(readVarInt(in));
+            }
+            int checksumCount = in.readInt();
+            for (int i = 0; i < checksumCount; i++) {
+                log.checksums.add(in.readInt());
+            }
+            log.start.read(in);
+            return log;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading input log " + file, e);
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+
+    //7 bits per byte, high bit set on all but the last; most runs fit in one or two bytes
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,139 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs index ranges of a job on a fixed pool of worker threads, with the calling thread
+// taking the first range. Ranges depend only on the count and the number of threads, and each
+// index is handled exactly once, so jobs that only write to their own indices give the same
+// result on any device. Jobs must not touch the scene graph; that stays on the render thread.
+public class JobScheduler implements Disposable {
+
+    public interface Job {
+        // Handles indices start (inclusive) to end (exclusive)
+        void run(int start, int end);
+    }
+
+    private final int threads;
+    private final ThreadPoolExecutor executor;
+    private final Range[] ranges;
+    private final AtomicInteger pending;
+    private final Object done;
+    private volatile Throwable failure;
+    private boolean parallel;
+
+    private class Range implements Runnable {
+        Job job;
+        int start;
+        int end;
+
+        @Override
+        public void run() {
+            try {
+                job.run(start, end);
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                job = null;
+                if (pending.decrementAndGet() == 0) {
+                    synchronized (done) {
+                        done.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    // One worker per core besides the render thread
+    public JobScheduler() {
+        this(Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public JobScheduler(int workers) {
+        workers = Math.max(0, workers);
+        threads = workers + 1;
+        executor = workers == 0 ? null : new ThreadPoolExecutor(workers, workers,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(workers),
+                new ThreadFactory() {
+                    private int count = 0;
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "jobs-" + count++);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        ranges = new Range[threads];
+        for (int i = 0; i < threads; i++) {
+            ranges[i] = new Range();
+        }
+        pending = new AtomicInteger();
+        done = new Object();
+        parallel = executor != null;
+    }
+
+    // false runs every job on the calling thread, in index order (for debugging)
+    public void setParallel(boolean b) { parallel = b && executor != null; }
+    public boolean isParallel() { return parallel; }
+    public int getThreads() { return parallel ? threads : 1; }
+
+    // Runs job over 0 to count and returns when all of it is done.
+    // Ranges are at least minRange indices long, so small counts stay on the calling thread.
+    public void run(int count, int minRange, Job job) {
+        int rangeCount = parallel ? Math.min(threads, count / Math.max(1, minRange)) : 1;
+        if (rangeCount <= 1) {
+            job.run(0, count);
+            return;
+        }
+        int size = (count + rangeCount - 1) / rangeCount;
+        failure = null;
+        pending.set(rangeCount - 1);
+        for (int i = 1; i < rangeCount; i++) {
+            Range range = ranges[i];
+            range.job = job;
+            range.start = i * size;
+            range.end = Math.min(count, (i + 1) * size);
+            executor.execute(range);
+        }
+        try {
+            job.run(0, size);
+        } finally {
+            //the workers still use job, so wait for them even if the first range failed
+            awaitRanges();
+        }
+        if (failure != null) {
+            throw new GdxRuntimeException("Job failed", failure);
+        }
+    }
+
+    private void awaitRanges() {
+        boolean interrupted = false;
+        synchronized (done) {
+            while (pending.get() > 0) {
+                try {
+                    done.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        parallel = false;
+    }
+}
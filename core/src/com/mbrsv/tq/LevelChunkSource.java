@@ -0,0 +1,117 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.utils.IntArray;
+
+// Chunks cut out of a LevelData held in memory. Coins and walls are bucketed by chunk up front,
+// so loading a chunk only touches its own content. A wall crossing chunk borders is split, each
+// chunk owning the part inside it. The level must not change while the streamer runs.
+public class LevelChunkSource implements ChunkSource {
+
+    private final LevelData level;
+    private final int chunkTiles;
+    private final int chunkCols;
+    private final int chunkRows;
+    private final IntArray[] coinsByChunk;
+    private final IntArray[] wallsByChunk;
+
+    public LevelChunkSource(LevelData level, int chunkTiles) {
+        this.level = level;
+        this.chunkTiles = chunkTiles;
+        chunkCols = (level.tileCountWidth + chunkTiles - 1) / chunkTiles;
+        chunkRows = (level.tileCountHeight + chunkTiles - 1) / chunkTiles;
+        coinsByChunk = new IntArray[chunkCols * chunkRows];
+        wallsByChunk = new IntArray[chunkCols * chunkRows];
+        float chunkSize = chunkTiles * level.tileSize;
+
+        for (int i = 0; i < level.coins.size; i += 2) {
+            int col = clampCol((int) (level.coins.get(i) / chunkSize));
+            int row = clampRow((int) (level.coins.get(i + 1) / chunkSize));
+            bucket(coinsByChunk, row * chunkCols + col).add(i);
+        }
+        for (int i = 0; i < level.walls.size; i += 4) {
+            float x = level.walls.get(i);
+            float y = level.walls.get(i + 1);
+            int minCol = clampCol((int) (x / chunkSize));
+            int minRow = clampRow((int) (y / chunkSize));
+            //a wall ending exactly on a chunk border does not reach into the next chunk
+            int maxCol = clampCol((int) Math.ceil((x + level.walls.get(i + 2)) / chunkSize) - 1);
+            int maxRow = clampRow((int) Math.ceil((y + level.walls.get(i + 3)) / chunkSize) - 1);
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    bucket(wallsByChunk, row * chunkCols + col).add(i);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getTileCountWidth() { return level.tileCountWidth; }
+    @Override
+    public int getTileCountHeight() { return level.tileCountHeight; }
+    @Override
+    public int getTileSize() { return level.tileSize; }
+
+    @Override
+    public WorldChunk load(int col, int row, int chunkTiles) {
+        if (chunkTiles != this.chunkTiles) {
+            throw new IllegalArgumentException("Chunks were bucketed for " + this.chunkTiles + " tiles");
+        }
+        int tileX = col * chunkTiles;
+        int tileY = row * chunkTiles;
+        int tileWidth = Math.min(chunkTiles, level.tileCountWidth - tileX);
+        int tileHeight = Math.min(chunkTiles, level.tileCountHeight - tileY);
+        WorldChunk chunk = new WorldChunk(col, row, tileX, tileY, tileWidth, tileHeight);
+
+        IntArray coins = coinsByChunk[row * chunkCols + col];
+        if (coins != null) {
+            for (int n = 0; n < coins.size; n++) {
+                int i = coins.get(n);
+                chunk.coins.add(level.coins.get(i));
+                chunk.coins.add(level.coins.get(i + 1));
+                chunk.coinIds.add(i / 2);
+            }
+        }
+
+        float tileSize = level.tileSize;
+        float left = tileX * tileSize;
+        float bottom = tileY * tileSize;
+        float right = left + tileWidth * tileSize;
+        float top = bottom + tileHeight * tileSize;
+        IntArray walls = wallsByChunk[row * chunkCols + col];
+        if (walls != null) {
+            for (int n = 0; n < walls.size; n++) {
+                int i = walls.get(n);
+                float x = Math.max(left, level.walls.get(i));
+                float y = Math.max(bottom, level.walls.get(i + 1));
+                float wallRight = Math.min(right, level.walls.get(i) + level.walls.get(i + 2));
+                float wallTop = Math.min(top, level.walls.get(i + 1) + level.walls.get(i + 3));
+                if (wallRight > x && wallTop > y) {
+                    chunk.walls.add(x);
+                    chunk.walls.add(y);
+                    chunk.walls.add(wallRight - x);
+                    chunk.walls.add(wallTop - y);
+                }
+            }
+        }
+
+        for (LevelData.TileLayer layer : level.tileLayers) {
+            int[] tiles = new int[tileWidth * tileHeight];
+            for (int y = 0; y < tileHeight; y++) {
+                System.arraycopy(layer.tiles, (tileY + y) * level.tileCountWidth + tileX,
+                        tiles, y * tileWidth, tileWidth);
+            }
+            chunk.tiles.add(tiles);
+        }
+        return chunk;
+    }
+
+    private IntArray bucket(IntArray[] buckets, int index) {
+        if (buckets[index] == null) {
+            buckets[index] = new IntArray();
+        }
+        return buckets[index];
+    }
+
+    private int clampCol(int col) { return Math.max(0, Math.min(chunkCols - 1, col)); }
+    private int clampRow(int row) { return Math.max(0, Math.min(chunkRows - 1, row)); }
+}
@@ -0,0 +1,587 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Base64Coder;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+// The content of a level: its size, the player spawn, coin spawns, solid walls and, when read
+// from a TMX or level file, its tile layers. It holds no textures, so it can be built without
+// a GL context (headless runs, benchmarks, the level compiler); toTiledMap() adds them.
+public class LevelData {
+
+    //binary level files: "TQLV", format version, then the fields in the order of write()
+    public static final int MAGIC = 0x54514C56;
+    public static final int VERSION = 2;
+
+    //tile ids in TMX layers carry their flip flags in the top bits
+    private static final int FLIP_HORIZONTALLY = 0x80000000;
+    private static final int FLIP_VERTICALLY = 0x40000000;
+    private static final int FLIP_DIAGONALLY = 0x20000000;
+    private static final int FLIP_MASK = FLIP_HORIZONTALLY | FLIP_VERTICALLY | FLIP_DIAGONALLY;
+
+    // Tileset image cut into tiles numbered from firstId
+    public static class TileSet {
+        public int firstId;
+        public int tileWidth;
+        public int tileHeight;
+        public int spacing;
+        public int margin;
+        //relative to the level file, as written in the map
+        public String image;
+        //asset path of the image, resolved when the level is read
+        public String path;
+    }
+
+    // Tile ids row by row from the bottom row up, with TMX flip flags; 0 is an empty cell
+    public static class TileLayer {
+        public String name;
+        public int[] tiles;
+    }
+
+    public int tileCountWidth;
+    public int tileCountHeight;
+    public int tileSize;
+    public float playerX;
+    public float playerY;
+    //x, y pairs
+    public final FloatArray coins;
+    //x, y, width, height quadruples
+    public final FloatArray walls;
+    public final Array<TileSet> tileSets;
+    public final Array<TileLayer> tileLayers;
+    //ids of tiles whose "solid" property is true; see WallMerger
+    public final IntArray solidTiles;
+
+    public LevelData(int tileCountWidth, int tileCountHeight, int tileSize) {
+        this.tileCountWidth = tileCountWidth;
+        this.tileCountHeight = tileCountHeight;
+        this.tileSize = tileSize;
+        coins = new FloatArray();
+        walls = new FloatArray();
+        tileSets = new Array<TileSet>();
+        tileLayers = new Array<TileLayer>();
+        solidTiles = new IntArray();
+    }
+
+    public int getWidth() { return tileCountWidth * tileSize; }
+    public int getHeight() { return tileCountHeight * tileSize; }
+    public int getCoinCount() { return coins.size / 2; }
+    public int getWallCount() { return walls.size / 4; }
+
+    public void addCoin(float x, float y) {
+        coins.add(x);
+        coins.add(y);
+    }
+
+    public void addWall(float x, float y, float width, float height) {
+        walls.add(x);
+        walls.add(y);
+        walls.add(width);
+        walls.add(height);
+    }
+
+    // Reads the ObjectData and PhysicsData layers of a loaded map, and its tile layers
+    // (tile ids only) for solid tiles
+    public static LevelData fromTiledMap(TiledMap map) {
+        TiledMapTileLayer base = (TiledMapTileLayer) map.getLayers().get(0);
+        LevelData level = new LevelData(base.getWidth(), base.getHeight(), (int) base.getTileWidth());
+
+        for (TiledMapTileSet tileSet : map.getTileSets()) {
+            for (TiledMapTile tile : tileSet) {
+                if ("true".equals(String.valueOf(tile.getProperties().get("solid")))) {
+                    level.solidTiles.add(tile.getId());
+                }
+            }
+        }
+        for (MapLayer mapLayer : map.getLayers()) {
+            if (!(mapLayer instanceof TiledMapTileLayer)) {
+                continue;
+            }
+            TiledMapTileLayer tileLayer = (TiledMapTileLayer) mapLayer;
+            TileLayer layer = new TileLayer();
+            layer.name = tileLayer.getName();
+            layer.tiles = new int[level.tileCountWidth * level.tileCountHeight];
+            int width = Math.min(level.tileCountWidth, tileLayer.getWidth());
+            int height = Math.min(level.tileCountHeight, tileLayer.getHeight());
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    Cell cell = tileLayer.getCell(x, y);
+                    if (cell != null && cell.getTile() != null) {
+                        layer.tiles[y * level.tileCountWidth + x] = cell.getTile().getId();
+                    }
+                }
+            }
+            level.tileLayers.add(layer);
+        }
+
+        MapObjects objects = map.getLayers().get("ObjectData").getObjects();
+        for (MapObject object : objects) {
+            Rectangle r = ((RectangleMapObject) object).getRectangle();
+            level.addObject(object.getName(), r.x, r.y);
+        }
+
+        objects = map.getLayers().get("PhysicsData").getObjects();
+        for (MapObject object : objects) {
+            Rectangle r = ((RectangleMapObject) object).getRectangle();
+            level.addWall(r.x, r.y, r.width, r.height);
+        }
+        return level;
+    }
+
+    // Reads the same layers straight from the TMX XML, plus the tile layers and tilesets,
+    // without loading any tileset textures
+    public static LevelData fromTmx(FileHandle file) {
+        Element root = new XmlReader().parse(file.readString("UTF-8"));
+        LevelData level = new LevelData(root.getIntAttribute("width"),
+                root.getIntAttribute("height"), root.getIntAttribute("tilewidth"));
+        int mapHeight = level.getHeight();
+
+        for (Element element : root.getChildrenByName("tileset")) {
+            if (element.getAttribute("source", null) != null) {
+                throw new GdxRuntimeException("External tilesets are not supported: " + file);
+            }
+            TileSet tileSet = new TileSet();
+            tileSet.firstId = element.getIntAttribute("firstgid", 1);
+            tileSet.tileWidth = element.getIntAttribute("tilewidth", level.tileSize);
+            tileSet.tileHeight = element.getIntAttribute("tileheight", level.tileSize);
+            tileSet.spacing = element.getIntAttribute("spacing", 0);
+            tileSet.margin = element.getIntAttribute("margin", 0);
+            tileSet.image = element.getChildByName("image").getAttribute("source");
+            tileSet.path = resolve(file, tileSet.image);
+            level.tileSets.add(tileSet);
+            for (Element tile : element.getChildrenByName("tile")) {
+                Element properties = tile.getChildByName("properties");
+                if (properties == null) {
+                    continue;
+                }
+                for (Element property : properties.getChildrenByName("property")) {
+                    if (property.getAttribute("name", "").equals("solid")
+                            && property.getAttribute("value", "").equals("true")) {
+                        level.solidTiles.add(tileSet.firstId + tile.getIntAttribute("id"));
+                    }
+                }
+            }
+        }
+        for (Element element : root.getChildrenByName("layer")) {
+            TileLayer layer = new TileLayer();
+            layer.name = element.getAttribute("name", "");
+            layer.tiles = readTiles(element.getChildByName("data"),
+                    level.tileCountWidth, level.tileCountHeight);
+            level.tileLayers.add(layer);
+        }
+
+        for (Element group : root.getChildrenByName("objectgroup")) {
+            String groupName = group.getAttribute("name", "");
+            for (Element object : group.getChildrenByName("object")) {
+                float width = object.getFloatAttribute("width", 0);
+                float height = object.getFloatAttribute("height", 0);
+                float x = object.getFloatAttribute("x", 0);
+                //TMX measures y downwards from the top edge, the game upwards from the bottom
+                float y = mapHeight - object.getFloatAttribute("y", 0) - height;
+                if (groupName.equals("ObjectData")) {
+                    level.addObject(object.getAttribute("name", ""), x, y);
+                } else if (groupName.equals("PhysicsData")) {
+                    level.addWall(x, y, width, height);
+                }
+            }
+        }
+        return level;
+    }
+
+    // Reads a level written by write(). The file is memory-mapped where the platform allows it
+    // (not for Android assets, which are read into one array instead).
+    public static LevelData read(FileHandle file) {
+        ByteBuffer buffer;
+        try {
+            buffer = file.map();
+        } catch (GdxRuntimeException e) {
+            buffer = ByteBuffer.wrap(file.readBytes());
+        }
+        LevelData level = read(buffer);
+        for (TileSet tileSet : level.tileSets) {
+            tileSet.path = resolve(file, tileSet.image);
+        }
+        return level;
+    }
+
+    // Reads a level from the buffer's position; big-endian, as written by write()
+    public static LevelData read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException("Not a level file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Unsupported level file version " + version);
+        }
+        LevelData level = new LevelData(buffer.getInt(), buffer.getInt(), buffer.getInt());
+        level.playerX = buffer.getFloat();
+        level.playerY = buffer.getFloat();
+
+        int tileSetCount = buffer.getInt();
+        for (int i = 0; i < tileSetCount; i++) {
+            TileSet tileSet = new TileSet();
+            tileSet.firstId = buffer.getInt();
+            tileSet.tileWidth = buffer.getInt();
+            tileSet.tileHeight = buffer.getInt();
+            tileSet.spacing = buffer.getInt();
+            tileSet.margin = buffer.getInt();
+            tileSet.image = readString(buffer);
+            level.tileSets.add(tileSet);
+        }
+        int solidCount = buffer.getInt();
+        for (int i = 0; i < solidCount; i++) {
+            level.solidTiles.add(buffer.getInt());
+        }
+        int layerCount = buffer.getInt();
+        int cellCount = level.tileCountWidth * level.tileCountHeight;
+        for (int i = 0; i < layerCount; i++) {
+            TileLayer layer = new TileLayer();
+            layer.name = readString(buffer);
+            layer.tiles = new int[cellCount];
+            //bulk copies straight out of the (mapped) buffer
+            buffer.asIntBuffer().get(layer.tiles);
+            buffer.position(buffer.position() + cellCount * 4);
+            level.tileLayers.add(layer);
+        }
+        readFloats(buffer, level.coins);
+        readFloats(buffer, level.walls);
+        return level;
+    }
+
+    // Writes the binary level format read by read()
+    public void write(FileHandle file) {
+        DataOutputStream out = new DataOutputStream(file.write(false, 8192));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(tileCountWidth);
+            out.writeInt(tileCountHeight);
+            out.writeInt(tileSize);
+            out.writeFloat(playerX);
+            out.writeFloat(playerY);
+
+            out.writeInt(tileSets.size);
+            for (TileSet tileSet : tileSets) {
+                out.writeInt(tileSet.firstId);
+                out.writeInt(tileSet.tileWidth);
+                out.writeInt(tileSet.tileHeight);
+                out.writeInt(tileSet.spacing);
+                out.writeInt(tileSet.margin);
+                writeString(out, tileSet.image);
+            }
+            out.writeInt(solidTiles.size);
+            for (int i = 0; i < solidTiles.size; i++) {
+                out.writeInt(solidTiles.get(i));
+            }
+            out.writeInt(tileLayers.size);
+            for (TileLayer layer : tileLayers) {
+                writeString(out, layer.name);
+                for (int tile : layer.tiles) {
+                    out.writeInt(tile);
+                }
+            }
+            writeFloats(out, coins);
+            writeFloats(out, walls);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing level " + file, e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    // Builds a renderable map of the tile layers. Tileset textures must be loaded already;
+    // the map does not own them, so disposing it is not needed.
+    public TiledMap toTiledMap(AssetCache assets) {
+        return toTiledMap(assets, true);
+    }
+
+    // withTiles false leaves the layers empty, for tiles streamed in with setTiles()
+    public TiledMap toTiledMap(AssetCache assets, boolean withTiles) {
+        TiledMap map = new TiledMap();
+        TiledMapTileSets mapTileSets = map.getTileSets();
+        for (TileSet tileSet : tileSets) {
+            Texture texture = assets.get(tileSet.path, Texture.class);
+            TiledMapTileSet mapTileSet = new TiledMapTileSet();
+            mapTileSet.setName(tileSet.image);
+            int id = tileSet.firstId;
+            int stopWidth = texture.getWidth() - tileSet.tileWidth;
+            int stopHeight = texture.getHeight() - tileSet.tileHeight;
+            for (int y = tileSet.margin; y <= stopHeight; y += tileSet.tileHeight + tileSet.spacing) {
+                for (int x = tileSet.margin; x <= stopWidth; x += tileSet.tileWidth + tileSet.spacing) {
+                    TextureRegion region = new TextureRegion(texture, x, y,
+                            tileSet.tileWidth, tileSet.tileHeight);
+                    TiledMapTile tile = new StaticTiledMapTile(region);
+                    tile.setId(id);
+                    if (solidTiles.contains(id)) {
+                        tile.getProperties().put("solid", "true");
+                    }
+                    mapTileSet.putTile(id++, tile);
+                }
+            }
+            mapTileSets.addTileSet(mapTileSet);
+        }
+
+        for (TileLayer layer : tileLayers) {
+            TiledMapTileLayer mapLayer = new TiledMapTileLayer(tileCountWidth, tileCountHeight,
+                    tileSize, tileSize);
+            mapLayer.setName(layer.name);
+            map.getLayers().add(mapLayer);
+            if (!withTiles) {
+                continue;
+            }
+            for (int y = 0; y < tileCountHeight; y++) {
+                for (int x = 0; x < tileCountWidth; x++) {
+                    int id = layer.tiles[y * tileCountWidth + x];
+                    TiledMapTile tile = mapTileSets.getTile(tileId(id));
+                    if (tile != null) {
+                        mapLayer.setCell(x, y, createCell(tile, id));
+                    }
+                }
+            }
+        }
+        return map;
+    }
+
+    // Fills a streamed chunk's cells in a map from toTiledMap(assets, false)
+    public static void setTiles(TiledMap map, WorldChunk chunk) {
+        TiledMapTileSets mapTileSets = map.getTileSets();
+        for (int i = 0; i < chunk.tiles.size && i < map.getLayers().getCount(); i++) {
+            TiledMapTileLayer mapLayer = (TiledMapTileLayer) map.getLayers().get(i);
+            int[] tiles = chunk.tiles.get(i);
+            for (int y = 0; y < chunk.tileHeight; y++) {
+                for (int x = 0; x < chunk.tileWidth; x++) {
+                    int id = tiles[y * chunk.tileWidth + x];
+                    TiledMapTile tile = mapTileSets.getTile(tileId(id));
+                    mapLayer.setCell(chunk.tileX + x, chunk.tileY + y,
+                            tile == null ? null : createCell(tile, id));
+                }
+            }
+        }
+    }
+
+    // Empties a streamed chunk's cells again
+    public static void clearTiles(TiledMap map, WorldChunk chunk) {
+        for (int i = 0; i < chunk.tiles.size && i < map.getLayers().getCount(); i++) {
+            TiledMapTileLayer mapLayer = (TiledMapTileLayer) map.getLayers().get(i);
+            for (int y = 0; y < chunk.tileHeight; y++) {
+                for (int x = 0; x < chunk.tileWidth; x++) {
+                    mapLayer.setCell(chunk.tileX + x, chunk.tileY + y, null);
+                }
+            }
+        }
+    }
+
+    // Random level for load testing: a border of walls, scattered wall segments and coins
+    public static LevelData generate(int tileCountWidth, int tileCountHeight, int tileSize,
+                                     int wallCount, int coinCount, long seed) {
+        LevelData level = new LevelData(tileCountWidth, tileCountHeight, tileSize);
+        RandomXS128 random = new RandomXS128(seed);
+        int width = level.getWidth();
+        int height = level.getHeight();
+
+        level.addWall(0, 0, width, tileSize);
+        level.addWall(0, height - tileSize, width, tileSize);
+        level.addWall(0, tileSize, tileSize, height - 2 * tileSize);
+        level.addWall(width - tileSize, tileSize, tileSize, height - 2 * tileSize);
+
+        for (int i = 0; i < wallCount; i++) {
+            int length = 1 + random.nextInt(6);
+            boolean horizontal = random.nextBoolean();
+            int col = 2 + random.nextInt(Math.max(1, tileCountWidth - 10));
+            int row = 2 + random.nextInt(Math.max(1, tileCountHeight - 10));
+            level.addWall(col * tileSize, row * tileSize,
+                    (horizontal ? length : 1) * tileSize, (horizontal ? 1 : length) * tileSize);
+        }
+        for (int i = 0; i < coinCount; i++) {
+            level.addCoin(MathUtils.floor(1 + random.nextFloat() * (tileCountWidth - 2)) * tileSize,
+                    MathUtils.floor(1 + random.nextFloat() * (tileCountHeight - 2)) * tileSize);
+        }
+        level.playerX = width / 2;
+        level.playerY = height / 2;
+        return level;
+    }
+
+    // Tiles this level times x times, for scaling entity counts of a real map;
+    // tile layers are not repeated
+    public LevelData repeat(int times) {
+        LevelData level = new LevelData(tileCountWidth * times, tileCountHeight * times, tileSize);
+        for (int ty = 0; ty < times; ty++) {
+            for (int tx = 0; tx < times; tx++) {
+                float offsetX = tx * getWidth();
+                float offsetY = ty * getHeight();
+                for (int i = 0; i < coins.size; i += 2) {
+                    level.addCoin(coins.get(i) + offsetX, coins.get(i + 1) + offsetY);
+                }
+                for (int i = 0; i < walls.size; i += 4) {
+                    level.addWall(walls.get(i) + offsetX, walls.get(i + 1) + offsetY,
+                            walls.get(i + 2), walls.get(i + 3));
+                }
+            }
+        }
+        level.playerX = playerX;
+        level.playerY = playerY;
+        return level;
+    }
+
+    private void addObject(String name, float x, float y) {
+        switch (name) {
+            case "player":
+                playerX = x;
+                playerY = y;
+                break;
+            case "coin":
+                addCoin(x, y);
+                break;
+            default:
+                System.err.println("Unknown tilemap object " + name);
+        }
+    }
+
+    // Tile id of a layer cell, without the flip flags
+    public static int tileId(int cell) {
+        return cell & ~FLIP_MASK;
+    }
+
+    // Cell with TMX flip flags turned into flips and rotation, the same way TmxMapLoader does
+    private static Cell createCell(TiledMapTile tile, int id) {
+        boolean flipHorizontally = (id & FLIP_HORIZONTALLY) != 0;
+        boolean flipVertically = (id & FLIP_VERTICALLY) != 0;
+        Cell cell = new Cell();
+        cell.setTile(tile);
+        if ((id & FLIP_DIAGONALLY) != 0) {
+            if (flipHorizontally && flipVertically) {
+                cell.setFlipHorizontally(true);
+                cell.setRotation(Cell.ROTATE_270);
+            } else if (flipHorizontally) {
+                cell.setRotation(Cell.ROTATE_270);
+            } else if (flipVertically) {
+                cell.setRotation(Cell.ROTATE_90);
+            } else {
+                cell.setFlipVertically(true);
+                cell.setRotation(Cell.ROTATE_270);
+            }
+        } else {
+            cell.setFlipHorizontally(flipHorizontally);
+            cell.setFlipVertically(flipVertically);
+        }
+        return cell;
+    }
+
+    // Decodes a TMX layer's data element (csv or base64, optionally zlib/gzip compressed);
+    // rows are flipped so the bottom row comes first, like the game's y axis
+    private static int[] readTiles(Element data, int width, int height) {
+        int[] tiles = new int[width * height];
+        String encoding = data.getAttribute("encoding", "");
+        String text = data.getText() == null ? "" : data.getText().trim();
+        if (encoding.equals("csv")) {
+            String[] values = text.split(",");
+            for (int i = 0; i < tiles.length; i++) {
+                int row = height - 1 - i / width;
+                tiles[row * width + i % width] = (int) Long.parseLong(values[i].trim());
+            }
+            return tiles;
+        }
+        if (!encoding.equals("base64")) {
+            throw new GdxRuntimeException("Unsupported TMX layer encoding: " + encoding);
+        }
+        String compression = data.getAttribute("compression", "");
+        InputStream in = new ByteArrayInputStream(Base64Coder.decode(text));
+        try {
+            if (compression.equals("zlib")) {
+                in = new InflaterInputStream(in);
+            } else if (compression.equals("gzip")) {
+                in = new GZIPInputStream(in);
+            } else if (compression.length() > 0) {
+                throw new GdxRuntimeException("Unsupported TMX layer compression: " + compression);
+            }
+            byte[] bytes = new byte[4];
+            for (int i = 0; i < tiles.length; i++) {
+                int read = 0;
+                while (read < 4) {
+                    int n = in.read(bytes, read, 4 - read);
+                    if (n < 0) {
+                        throw new GdxRuntimeException("TMX layer data is too short");
+                    }
+                    read += n;
+                }
+                //little-endian ids, top row first
+                int row = height - 1 - i / width;
+                tiles[row * width + i % width] = (bytes[0] & 0xff) | (bytes[1] & 0xff) << 8
+                        | (bytes[2] & 0xff) << 16 | (bytes[3] & 0xff) << 24;
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error decoding TMX layer data", e);
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+        return tiles;
+    }
+
+    // Asset path of a file referenced relative to the level file
+    private static String resolve(FileHandle levelFile, String name) {
+        String directory = levelFile.parent().path();
+        return directory.length() == 0 ? name : directory + "/" + name;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (IOException e) {
+            throw new GdxRuntimeException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void readFloats(ByteBuffer buffer, FloatArray out) {
+        int count = buffer.getInt();
+        out.clear();
+        out.ensureCapacity(count);
+        buffer.asFloatBuffer().get(out.items, 0, count);
+        buffer.position(buffer.position() + count * 4);
+        out.size = count;
+    }
+
+    private static void writeFloats(DataOutputStream out, FloatArray values) throws IOException {
+        out.writeInt(values.size);
+        for (int i = 0; i < values.size; i++) {
+            out.writeFloat(values.get(i));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+
+// AssetManager loader for compiled .lvl files (see LevelData.write).
+// The file is read on the loader thread; its tileset images load as dependencies,
+// with the same default texture settings TmxMapLoader uses.
+public class LevelLoader extends AsynchronousAssetLoader<LevelData, LevelLoader.LevelParameters> {
+
+    public static class LevelParameters extends AssetLoaderParameters<LevelData> {}
+
+    private LevelData level;
+
+    public LevelLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file,
+                                                  LevelParameters parameter) {
+        level = LevelData.read(file);
+        Array<AssetDescriptor> dependencies = new Array<AssetDescriptor>();
+        for (LevelData.TileSet tileSet : level.tileSets) {
+            dependencies.add(new AssetDescriptor<Texture>(tileSet.path, Texture.class));
+        }
+        return dependencies;
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file,
+                          LevelParameters parameter) {}
+
+    @Override
+    public LevelData loadSync(AssetManager manager, String fileName, FileHandle file,
+                              LevelParameters parameter) {
+        LevelData result = level;
+        level = null;
+        return result;
+    }
+}
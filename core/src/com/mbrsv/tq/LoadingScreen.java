@@ -0,0 +1,57 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
+
+// Loads the level's assets asynchronously while showing progress,
+// then hands over to a fresh GameScreen.
+public class LoadingScreen extends BaseScreen {
+
+    private BitmapFont font;
+    private Label progressLabel;
+    private boolean finished;
+
+    public LoadingScreen(BaseGame g) {
+        super(g);
+    }
+
+    @Override
+    public void create() {
+        font = new BitmapFont();
+        progressLabel = new Label("Loading 0%", new LabelStyle(font, Color.WHITE));
+        uiTable.add(progressLabel);
+
+        finished = false;
+        GameScreen.queueAssets(assets);
+    }
+
+    @Override
+    public void update(float delta) {
+        if (finished) {
+            return;
+        }
+        //each call uploads at most one finished asset, so frames keep flowing
+        boolean done = assets.update();
+        progressLabel.setText("Loading " + (int) (assets.getProgress() * 100) + "%");
+        if (done) {
+            finished = true;
+            game.setScreen(new GameScreen(game));
+            //dispose after this frame has finished rendering
+            Gdx.app.postRunnable(new Runnable() {
+                @Override
+                public void run() {
+                    dispose();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        font.dispose();
+    }
+}
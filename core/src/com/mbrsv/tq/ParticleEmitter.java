@@ -0,0 +1,130 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Rectangle;
+
+// One kind of particle (region, tint, motion and lifetime ranges) stored in preallocated arrays.
+// The capacity is the emitter's budget: particles emitted beyond it are dropped, so piling up
+// effects never allocates or grows the per-frame cost. Dead particles are swap-removed.
+// Particles are plain quads without actors; they fade out and change size over their life.
+public class ParticleEmitter {
+
+    private final TextureRegion region;
+    private final int capacity;
+    private final float[] x;
+    private final float[] y;
+    private final float[] vx;
+    private final float[] vy;
+    private final float[] age;
+    private final float[] lifetime;
+    private int size;
+    //visual only, so it does not need to follow the gameplay seed
+    private final RandomXS128 random;
+
+    private float minSpeed, maxSpeed;
+    private float minAngle, maxAngle;
+    private float minLifetime, maxLifetime;
+    private float startSize, endSize;
+    //fraction of the velocity lost per second
+    private float drag;
+    private float gravity;
+    private float red, green, blue, alpha;
+
+    public ParticleEmitter(TextureRegion region, int capacity) {
+        this.region = region;
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        age = new float[capacity];
+        lifetime = new float[capacity];
+        size = 0;
+        random = new RandomXS128();
+
+        setSpeed(50, 100);
+        setAngle(0, 360);
+        setLifetime(0.5f, 1);
+        setSize(8, 8);
+        drag = 0;
+        gravity = 0;
+        setColor(1, 1, 1, 1);
+    }
+
+    public void setSpeed(float min, float max) { minSpeed = min; maxSpeed = max; }
+    // Directions in degrees, counterclockwise from the x axis
+    public void setAngle(float min, float max) { minAngle = min; maxAngle = max; }
+    public void setLifetime(float min, float max) { minLifetime = min; maxLifetime = max; }
+    public void setSize(float start, float end) { startSize = start; endSize = end; }
+    public void setDrag(float d) { drag = d; }
+    public void setGravity(float g) { gravity = g; }
+    public void setColor(float r, float g, float b, float a) { red = r; green = g; blue = b; alpha = a; }
+
+    // Starts up to count particles at the point; returns how many fit in the budget
+    public int emit(float px, float py, int count) {
+        count = Math.min(count, capacity - size);
+        for (int n = 0; n < count; n++) {
+            int i = size++;
+            float angle = minAngle + random.nextFloat() * (maxAngle - minAngle);
+            float speed = minSpeed + random.nextFloat() * (maxSpeed - minSpeed);
+            x[i] = px;
+            y[i] = py;
+            vx[i] = speed * MathUtils.cosDeg(angle);
+            vy[i] = speed * MathUtils.sinDeg(angle);
+            age[i] = 0;
+            lifetime[i] = minLifetime + random.nextFloat() * (maxLifetime - minLifetime);
+        }
+        return count;
+    }
+
+    public void update(float delta) {
+        float damping = Math.max(0, 1 - drag * delta);
+        int i = 0;
+        while (i < size) {
+            age[i] += delta;
+            if (age[i] >= lifetime[i]) {
+                //swap-remove; the particle moved in from the end is handled next
+                size--;
+                x[i] = x[size];
+                y[i] = y[size];
+                vx[i] = vx[size];
+                vy[i] = vy[size];
+                age[i] = age[size];
+                lifetime[i] = lifetime[size];
+                continue;
+            }
+            vx[i] *= damping;
+            vy[i] = vy[i] * damping + gravity * delta;
+            x[i] += vx[i] * delta;
+            y[i] += vy[i] * delta;
+            i++;
+        }
+    }
+
+    // Draws the live particles inside the area (null draws all); the batch must have begun
+    public void draw(Batch batch, Rectangle area) {
+        int drawn = 0;
+        for (int i = 0; i < size; i++) {
+            float t = age[i] / lifetime[i];
+            float s = startSize + (endSize - startSize) * t;
+            float left = x[i] - s / 2;
+            float bottom = y[i] - s / 2;
+            if (area != null && (left > area.x + area.width || left + s < area.x
+                    || bottom > area.y + area.height || bottom + s < area.y)) {
+                continue;
+            }
+            batch.setColor(red, green, blue, alpha * (1 - t));
+            batch.draw(region, left, bottom, s, s);
+            drawn++;
+        }
+        RenderStats.particlesDrawn += drawn;
+        RenderStats.particlesCulled += size - drawn;
+    }
+
+    public void clear() { size = 0; }
+    public int size() { return size; }
+    public int getCapacity() { return capacity; }
+}
@@ -0,0 +1,80 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+// Particle emitters drawn together in one begin/end of a batch; emitters whose regions share a
+// texture cost a single draw call between them. Effects started farther than cullDistance
+// outside the view are skipped, since they would be gone before anyone could see them.
+public class ParticleSystem {
+
+    private final Array<ParticleEmitter> emitters;
+    //shared with the screen, which keeps it up to date
+    private final Rectangle view;
+    private float cullDistance;
+
+    public ParticleSystem(Rectangle view) {
+        this.view = view;
+        emitters = new Array<ParticleEmitter>();
+        cullDistance = 128;
+    }
+
+    public ParticleEmitter add(ParticleEmitter emitter) {
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    public void setCullDistance(float distance) {
+        cullDistance = distance;
+    }
+
+    // Emits through the emitter unless the point is too far outside the view to matter
+    public int emit(ParticleEmitter emitter, float x, float y, int count) {
+        if (x < view.x - cullDistance || x > view.x + view.width + cullDistance
+                || y < view.y - cullDistance || y > view.y + view.height + cullDistance) {
+            return 0;
+        }
+        return emitter.emit(x, y, count);
+    }
+
+    public void update(float delta) {
+        for (int i = 0; i < emitters.size; i++) {
+            emitters.get(i).update(delta);
+        }
+    }
+
+    // Draws every emitter inside the view; the caller sets the batch's projection
+    // (and may skip the call while isEmpty())
+    public void draw(Batch batch) {
+        batch.begin();
+        for (int i = 0; i < emitters.size; i++) {
+            emitters.get(i).draw(batch, view);
+        }
+        batch.setColor(1, 1, 1, 1);
+        batch.end();
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < emitters.size; i++) {
+            if (emitters.get(i).size() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getParticleCount() {
+        int count = 0;
+        for (int i = 0; i < emitters.size; i++) {
+            count += emitters.get(i).size();
+        }
+        return count;
+    }
+
+    public void clear() {
+        for (int i = 0; i < emitters.size; i++) {
+            emitters.get(i).clear();
+        }
+    }
+}
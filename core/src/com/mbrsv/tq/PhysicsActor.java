@@ -1,7 +1,9 @@
 package com.mbrsv.tq;
 
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 
 public class PhysicsActor extends AnimatedActor {
 
@@ -10,6 +12,15 @@ public class PhysicsActor extends AnimatedActor {
     private float maxSpeed;
     private float deceleration;
     private boolean autoAngle;
+    //managed actors are integrated by their world (possibly on a worker thread), not in act()
+    private boolean managed;
+
+    //continuous collision: when set, each step is swept against these solids
+    private SpatialGrid solids;
+    private final Rectangle sweepArea;
+    private final Array<BaseActor> sweepCandidates;
+    private float hitNormalX;
+    private float hitNormalY;
 
     public PhysicsActor() {
         velocity = new Vector2();
@@ -17,6 +28,10 @@ public class PhysicsActor extends AnimatedActor {
         maxSpeed = 9999;
         deceleration = 0;
         autoAngle = false;
+        managed = false;
+        solids = null;
+        sweepArea = new Rectangle();
+        sweepCandidates = new Array<BaseActor>();
     }
 
     //VELOCITY METHODS
@@ -25,6 +40,8 @@ public class PhysicsActor extends AnimatedActor {
     public void setVelocityAS(float angleDeg, float speed) {
         velocity.x = speed * MathUtils.cosDeg(angleDeg);
         velocity.y = speed * MathUtils.sinDeg(angleDeg); }
+    public float getVelocityX() { return velocity.x; }
+    public float getVelocityY() { return velocity.y; }
 
     //SPEED METHODS
     public float getSpeed() { return velocity.len(); }
@@ -45,12 +62,32 @@ public class PhysicsActor extends AnimatedActor {
     public void addAccelerationAS(float angleDeg, float speed) { acceleration.add(
             speed * MathUtils.cosDeg(angleDeg),
             speed * MathUtils.sinDeg(angleDeg)); }
+    public float getAccelerationX() { return acceleration.x; }
+    public float getAccelerationY() { return acceleration.y; }
     public void accelerateForward(float speed) { setAccelerationAS(getRotation(), speed); }
     public void setDeceleration(float d) { deceleration = d; }
 
+    //CONTINUOUS COLLISION METHODS
+    //pass null to go back to plain movement (discrete overlaps() checks only)
+    public void setContinuousCollision(SpatialGrid solidGrid) { solids = solidGrid; }
+    public boolean isContinuousCollision() { return solids != null; }
+
+    //INTEGRATION METHODS
+    public void setManaged(boolean b) { managed = b; }
+    public boolean isManaged() { return managed; }
+
     @Override
     public void act(float delta) {
         super.act(delta);
+        if (!managed) {
+            integrate(delta);
+        }
+    }
+
+    // Applies acceleration, deceleration and velocity for one step.
+    // Only changes this actor (and reads the solids grid), so different actors may be
+    // integrated on different threads while the grid is not modified.
+    public void integrate(float delta) {
         velocity.add(acceleration.x * delta, acceleration.y * delta); //apply acceleration
         //decrease velocity when not accelerating
         if (acceleration.len() < 0.01) {
@@ -66,20 +103,140 @@ public class PhysicsActor extends AnimatedActor {
             setSpeed(maxSpeed);
         }
         //apply velocity
-        moveBy(velocity.x * delta, velocity.y * delta);
+        float dx = velocity.x * delta;
+        float dy = velocity.y * delta;
+        if (solids != null && canTunnel(dx, dy)) {
+            sweepBy(dx, dy);
+        } else {
+            moveBy(dx, dy);
+        }
         //rotate img when moving
         if (autoAngle && getSpeed() > 0.1) {
             setRotation(getMotionAngle());
         }
     }
 
-    public void copy(PhysicsActor original) {
+    // True when (dx, dy) is longer than half the actor's smaller side, so the actor could
+    // skip past a wall between two frames. Shorter steps are left to the discrete resolver:
+    // the sweep uses the bounding box, which would stop a round shape at the box's corner.
+    private boolean canTunnel(float dx, float dy) {
+        Rectangle box = getBoundingRectangle();
+        float halfExtent = Math.min(box.width, box.height) / 2;
+        return dx * dx + dy * dy > halfExtent * halfExtent;
+    }
+
+    // Moves by (dx, dy) but stops at the first solid the bounding box would hit,
+    // then slides along that surface with the remaining movement
+    private void sweepBy(float dx, float dy) {
+        for (int iteration = 0; iteration < 3; iteration++) {
+            if (dx == 0 && dy == 0) {
+                return;
+            }
+            Rectangle box = getBoundingRectangle();
+            sweepArea.set(Math.min(box.x, box.x + dx), Math.min(box.y, box.y + dy),
+                    box.width + Math.abs(dx), box.height + Math.abs(dy));
+            solids.query(sweepArea, sweepCandidates);
+
+            float firstHit = 1;
+            float normalX = 0;
+            float normalY = 0;
+            for (int i = 0; i < sweepCandidates.size; i++) {
+                float t = timeOfImpact(box, dx, dy, sweepCandidates.get(i).getBoundingRectangle());
+                if (t < firstHit) {
+                    firstHit = t;
+                    normalX = hitNormalX;
+                    normalY = hitNormalY;
+                }
+            }
+            if (firstHit >= 1) {
+                moveBy(dx, dy);
+                return;
+            }
+
+            moveBy(dx * firstHit, dy * firstHit);
+            //slide: keep only the movement along the surface that was hit
+            float remaining = 1 - firstHit;
+            dx *= remaining;
+            dy *= remaining;
+            if (normalX != 0) {
+                dx = 0;
+                velocity.x = 0;
+            }
+            if (normalY != 0) {
+                dy = 0;
+                velocity.y = 0;
+            }
+        }
+    }
+
+    // Swept AABB test; returns the fraction of (dx, dy) travelled before touching the solid,
+    // or 1 if it is not hit. Boxes that already overlap are left to the discrete resolver.
+    private float timeOfImpact(Rectangle box, float dx, float dy, Rectangle solid) {
+        float entryX, exitX, entryY, exitY;
+        if (dx > 0) {
+            entryX = (solid.x - (box.x + box.width)) / dx;
+            exitX = (solid.x + solid.width - box.x) / dx;
+        } else if (dx < 0) {
+            entryX = (solid.x + solid.width - box.x) / dx;
+            exitX = (solid.x - (box.x + box.width)) / dx;
+        } else {
+            if (box.x + box.width <= solid.x || box.x >= solid.x + solid.width) {
+                return 1;
+            }
+            entryX = Float.NEGATIVE_INFINITY;
+            exitX = Float.POSITIVE_INFINITY;
+        }
+        if (dy > 0) {
+            entryY = (solid.y - (box.y + box.height)) / dy;
+            exitY = (solid.y + solid.height - box.y) / dy;
+        } else if (dy < 0) {
+            entryY = (solid.y + solid.height - box.y) / dy;
+            exitY = (solid.y - (box.y + box.height)) / dy;
+        } else {
+            if (box.y + box.height <= solid.y || box.y >= solid.y + solid.height) {
+                return 1;
+            }
+            entryY = Float.NEGATIVE_INFINITY;
+            exitY = Float.POSITIVE_INFINITY;
+        }
+
+        float entry = Math.max(entryX, entryY);
+        float exit = Math.min(exitX, exitY);
+        if (entry > exit || entry < -0.0001f || entry >= 1) {
+            return 1;
+        }
+        if (entryX > entryY) {
+            hitNormalX = -Math.signum(dx);
+            hitNormalY = 0;
+        } else {
+            hitNormalX = 0;
+            hitNormalY = -Math.signum(dy);
+        }
+        return Math.max(entry, 0);
+    }
+
+    @Override
+    public void copy(BaseActor original) {
         super.copy(original);
-        this.velocity = new Vector2(original.velocity);
-        this.acceleration = new Vector2(original.acceleration);
-        this.maxSpeed = original.maxSpeed;
-        this.deceleration = original.deceleration;
-        this.autoAngle = original.autoAngle;
+        if (!(original instanceof PhysicsActor)) {
+            return;
+        }
+        PhysicsActor physics = (PhysicsActor) original;
+        this.velocity.set(physics.velocity);
+        this.acceleration.set(physics.acceleration);
+        this.maxSpeed = physics.maxSpeed;
+        this.deceleration = physics.deceleration;
+        this.autoAngle = physics.autoAngle;
+        this.managed = physics.managed;
+        this.solids = physics.solids;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        velocity.setZero();
+        acceleration.setZero();
+        managed = false;
     }
 
     public PhysicsActor clone() {
@@ -0,0 +1,33 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+// Drawing counters for the current frame, reset by BaseScreen before drawing
+public class RenderStats {
+
+    public static int renderCalls;
+    public static int actorsDrawn;
+    public static int actorsCulled;
+    public static int entitiesDrawn;
+    public static int entitiesCulled;
+    public static int particlesDrawn;
+    public static int particlesCulled;
+
+    public static void reset() {
+        renderCalls = 0;
+        actorsDrawn = 0;
+        actorsCulled = 0;
+        entitiesDrawn = 0;
+        entitiesCulled = 0;
+        particlesDrawn = 0;
+        particlesCulled = 0;
+    }
+
+    // Adds the draw calls of the batch's last begin/end; call right after it was used
+    public static void countBatch(Batch batch) {
+        if (batch instanceof SpriteBatch) {
+            renderCalls += ((SpriteBatch) batch).renderCalls;
+        }
+    }
+}
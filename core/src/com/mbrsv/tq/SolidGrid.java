@@ -0,0 +1,219 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Bits;
+
+// Solid cells on the tile lattice, for walls that are unions of whole tiles.
+// Unrotated rectangles and circles are pushed out of solid cells directly, without polygons.
+// A cell never pushes an actor across a side it shares with another solid cell, so actors
+// slide along a row of cells without catching on the seams between them.
+// Resolution only reads the grid, so actors may be resolved on several threads at once.
+public class SolidGrid {
+
+    private final int cols;
+    private final int rows;
+    private final float cellSize;
+    private final Bits cells;
+
+    public SolidGrid(int cols, int rows, float cellSize) {
+        this.cols = cols;
+        this.rows = rows;
+        this.cellSize = cellSize;
+        cells = new Bits(cols * rows);
+    }
+
+    // Marks the cells of a tile-aligned rectangle; returns false (and marks nothing)
+    // if the rectangle is not made of whole cells inside the grid
+    public boolean fill(float x, float y, float width, float height) {
+        int col = (int) (x / cellSize);
+        int row = (int) (y / cellSize);
+        int colCount = (int) (width / cellSize);
+        int rowCount = (int) (height / cellSize);
+        if (col * cellSize != x || row * cellSize != y
+                || colCount * cellSize != width || rowCount * cellSize != height
+                || col < 0 || row < 0 || col + colCount > cols || row + rowCount > rows) {
+            return false;
+        }
+        for (int r = row; r < row + rowCount; r++) {
+            for (int c = col; c < col + colCount; c++) {
+                cells.set(r * cols + c);
+            }
+        }
+        return true;
+    }
+
+    // Opens the cells of a tile-aligned rectangle; returns false if fill() would have refused it
+    public boolean clear(float x, float y, float width, float height) {
+        int col = (int) (x / cellSize);
+        int row = (int) (y / cellSize);
+        int colCount = (int) (width / cellSize);
+        int rowCount = (int) (height / cellSize);
+        if (col * cellSize != x || row * cellSize != y
+                || colCount * cellSize != width || rowCount * cellSize != height
+                || col < 0 || row < 0 || col + colCount > cols || row + rowCount > rows) {
+            return false;
+        }
+        for (int r = row; r < row + rowCount; r++) {
+            for (int c = col; c < col + colCount; c++) {
+                cells.clear(r * cols + c);
+            }
+        }
+        return true;
+    }
+
+    // Cells outside the grid are open
+    public boolean isSolid(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows && cells.get(row * cols + col);
+    }
+
+    public boolean isSolidAt(float x, float y) {
+        return isSolid(MathUtils.floor(x / cellSize), MathUtils.floor(y / cellSize));
+    }
+
+    // Whether resolve() can handle the actor's boundary; everything else needs the SAT path
+    public boolean supports(BaseActor actor) {
+        if (actor.getRotation() != 0 || actor.getScaleX() != 1 || actor.getScaleY() != 1) {
+            return false;
+        }
+        BaseActor.BoundaryType type = actor.getBoundaryType();
+        return type == BaseActor.BoundaryType.RECTANGLE
+                || (type == BaseActor.BoundaryType.ELLIPSE && actor.getWidth() == actor.getHeight());
+    }
+
+    // Pushes a supported actor out of the solid cells it overlaps. Returns true if it
+    // overlapped by more than half a pixel, like BaseActor.overlaps(other, true).
+    public boolean resolve(BaseActor actor) {
+        if (actor.getBoundaryType() == BaseActor.BoundaryType.RECTANGLE) {
+            return resolveBox(actor);
+        }
+        return resolveCircle(actor);
+    }
+
+    private boolean resolveBox(BaseActor actor) {
+        float width = actor.getWidth();
+        float height = actor.getHeight();
+        float deepest = 0;
+        int minCol = MathUtils.floor(actor.getX() / cellSize);
+        int minRow = MathUtils.floor(actor.getY() / cellSize);
+        int maxCol = MathUtils.floor((actor.getX() + width) / cellSize);
+        int maxRow = MathUtils.floor((actor.getY() + height) / cellSize);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                if (!isSolid(col, row)) {
+                    continue;
+                }
+                //the box may have moved already, so test against where it is now
+                float left = actor.getX();
+                float bottom = actor.getY();
+                float cellLeft = col * cellSize;
+                float cellBottom = row * cellSize;
+                if (left >= cellLeft + cellSize || left + width <= cellLeft
+                        || bottom >= cellBottom + cellSize || bottom + height <= cellBottom) {
+                    continue;
+                }
+                //smallest push through a side that is not shared with another solid cell
+                float pushX = 0;
+                float pushY = 0;
+                float best = Float.MAX_VALUE;
+                if (!isSolid(col - 1, row) && left + width - cellLeft < best) {
+                    best = left + width - cellLeft;
+                    pushX = -best;
+                    pushY = 0;
+                }
+                if (!isSolid(col + 1, row) && cellLeft + cellSize - left < best) {
+                    best = cellLeft + cellSize - left;
+                    pushX = best;
+                    pushY = 0;
+                }
+                if (!isSolid(col, row - 1) && bottom + height - cellBottom < best) {
+                    best = bottom + height - cellBottom;
+                    pushX = 0;
+                    pushY = -best;
+                }
+                if (!isSolid(col, row + 1) && cellBottom + cellSize - bottom < best) {
+                    best = cellBottom + cellSize - bottom;
+                    pushX = 0;
+                    pushY = best;
+                }
+                if (best == Float.MAX_VALUE) {
+                    continue; //buried in solid cells, nowhere sensible to go
+                }
+                actor.moveBy(pushX, pushY);
+                deepest = Math.max(deepest, best);
+            }
+        }
+        return deepest > 0.5f;
+    }
+
+    private boolean resolveCircle(BaseActor actor) {
+        float radius = actor.getWidth() / 2;
+        float deepest = 0;
+        int minCol = MathUtils.floor(actor.getX() / cellSize);
+        int minRow = MathUtils.floor(actor.getY() / cellSize);
+        int maxCol = MathUtils.floor((actor.getX() + 2 * radius) / cellSize);
+        int maxRow = MathUtils.floor((actor.getY() + 2 * radius) / cellSize);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                if (!isSolid(col, row)) {
+                    continue;
+                }
+                float centerX = actor.getX() + radius;
+                float centerY = actor.getY() + radius;
+                float cellLeft = col * cellSize;
+                float cellBottom = row * cellSize;
+                float nearestX = MathUtils.clamp(centerX, cellLeft, cellLeft + cellSize);
+                float nearestY = MathUtils.clamp(centerY, cellBottom, cellBottom + cellSize);
+                float dx = centerX - nearestX;
+                float dy = centerY - nearestY;
+                float distanceSquared = dx * dx + dy * dy;
+                if (distanceSquared >= radius * radius) {
+                    continue;
+                }
+
+                if (distanceSquared > 0) {
+                    //contacts on a side shared with a solid neighbour belong to that neighbour
+                    if ((dx < 0 && isSolid(col - 1, row)) || (dx > 0 && isSolid(col + 1, row))
+                            || (dy < 0 && isSolid(col, row - 1)) || (dy > 0 && isSolid(col, row + 1))) {
+                        continue;
+                    }
+                    float distance = (float) Math.sqrt(distanceSquared);
+                    float depth = radius - distance;
+                    actor.moveBy(dx / distance * depth, dy / distance * depth);
+                    deepest = Math.max(deepest, depth);
+                    continue;
+                }
+
+                //center inside the cell: leave through the nearest open side
+                float pushX = 0;
+                float pushY = 0;
+                float best = Float.MAX_VALUE;
+                if (!isSolid(col - 1, row) && centerX - cellLeft + radius < best) {
+                    best = centerX - cellLeft + radius;
+                    pushX = -best;
+                    pushY = 0;
+                }
+                if (!isSolid(col + 1, row) && cellLeft + cellSize - centerX + radius < best) {
+                    best = cellLeft + cellSize - centerX + radius;
+                    pushX = best;
+                    pushY = 0;
+                }
+                if (!isSolid(col, row - 1) && centerY - cellBottom + radius < best) {
+                    best = centerY - cellBottom + radius;
+                    pushX = 0;
+                    pushY = -best;
+                }
+                if (!isSolid(col, row + 1) && cellBottom + cellSize - centerY + radius < best) {
+                    best = cellBottom + cellSize - centerY + radius;
+                    pushX = 0;
+                    pushY = best;
+                }
+                if (best == Float.MAX_VALUE) {
+                    continue;
+                }
+                actor.moveBy(pushX, pushY);
+                deepest = Math.max(deepest, best);
+            }
+        }
+        return deepest > 0.5f;
+    }
+}
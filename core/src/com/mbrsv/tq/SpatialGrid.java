@@ -0,0 +1,143 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+// Uniform grid over the map that buckets actors by the cells their bounding rectangle touches.
+// Static actors are inserted once; moving actors call update() after they move.
+public class SpatialGrid {
+
+    private final float cellSize;
+    private final int cols;
+    private final int rows;
+    private final Array<BaseActor>[] cells;
+    //cell range each actor currently occupies: minCol, minRow, maxCol, maxRow
+    private final ObjectMap<BaseActor, int[]> ranges;
+    private final int[] scratchRange;
+
+    @SuppressWarnings("unchecked")
+    public SpatialGrid(float cellSize, float worldWidth, float worldHeight) {
+        this.cellSize = cellSize;
+        cols = Math.max(1, MathUtils.ceil(worldWidth / cellSize));
+        rows = Math.max(1, MathUtils.ceil(worldHeight / cellSize));
+        cells = new Array[cols * rows];
+        ranges = new ObjectMap<BaseActor, int[]>();
+        scratchRange = new int[4];
+    }
+
+    public void insert(BaseActor actor) {
+        if (ranges.containsKey(actor)) {
+            update(actor);
+            return;
+        }
+        int[] range = new int[4];
+        computeRange(actor.getBoundingRectangle(), range);
+        addToCells(actor, range);
+        ranges.put(actor, range);
+    }
+
+    public void remove(BaseActor actor) {
+        int[] range = ranges.remove(actor);
+        if (range != null) {
+            removeFromCells(actor, range);
+        }
+    }
+
+    // Re-buckets a moving actor; cheap when it stays within the same cells
+    public void update(BaseActor actor) {
+        int[] range = ranges.get(actor);
+        if (range == null) {
+            insert(actor);
+            return;
+        }
+        computeRange(actor.getBoundingRectangle(), scratchRange);
+        if (range[0] == scratchRange[0] && range[1] == scratchRange[1]
+                && range[2] == scratchRange[2] && range[3] == scratchRange[3]) {
+            return;
+        }
+        removeFromCells(actor, range);
+        System.arraycopy(scratchRange, 0, range, 0, 4);
+        addToCells(actor, range);
+    }
+
+    public boolean contains(BaseActor actor) {
+        return ranges.containsKey(actor);
+    }
+
+    public void clear() {
+        for (Array<BaseActor> cell : cells) {
+            if (cell != null) {
+                cell.clear();
+            }
+        }
+        ranges.clear();
+    }
+
+    public int size() {
+        return ranges.size;
+    }
+
+    // Collects every actor whose cells overlap the area into out (each actor once).
+    // out is cleared first and the same array may be reused every frame.
+    // Queries only read the grid, so several threads may query at once, with their own out
+    // arrays, as long as nothing is inserted, removed or updated meanwhile.
+    public Array<BaseActor> query(Rectangle area, Array<BaseActor> out) {
+        out.clear();
+        int minCol = clampCol(MathUtils.floor(area.x / cellSize));
+        int minRow = clampRow(MathUtils.floor(area.y / cellSize));
+        int maxCol = clampCol(MathUtils.floor((area.x + area.width) / cellSize));
+        int maxRow = clampRow(MathUtils.floor((area.y + area.height) / cellSize));
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                Array<BaseActor> cell = cells[row * cols + col];
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    BaseActor actor = cell.get(i);
+                    //an actor in several cells is reported from the first one the query covers
+                    int[] range = ranges.get(actor);
+                    if (col == Math.max(range[0], minCol) && row == Math.max(range[1], minRow)) {
+                        out.add(actor);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private void computeRange(Rectangle r, int[] range) {
+        range[0] = clampCol(MathUtils.floor(r.x / cellSize));
+        range[1] = clampRow(MathUtils.floor(r.y / cellSize));
+        range[2] = clampCol(MathUtils.floor((r.x + r.width) / cellSize));
+        range[3] = clampRow(MathUtils.floor((r.y + r.height) / cellSize));
+    }
+
+    private int clampCol(int col) { return MathUtils.clamp(col, 0, cols - 1); }
+    private int clampRow(int row) { return MathUtils.clamp(row, 0, rows - 1); }
+
+    private void addToCells(BaseActor actor, int[] range) {
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int col = range[0]; col <= range[2]; col++) {
+                int index = row * cols + col;
+                if (cells[index] == null) {
+                    cells[index] = new Array<BaseActor>(false, 4);
+                }
+                cells[index].add(actor);
+            }
+        }
+    }
+
+    private void removeFromCells(BaseActor actor, int[] range) {
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int col = range[0]; col <= range[2]; col++) {
+                Array<BaseActor> cell = cells[row * cols + col];
+                if (cell != null) {
+                    cell.removeValue(actor, true);
+                }
+            }
+        }
+    }
+}
@@ -3,5 +3,5 @@ package com.mbrsv.tq;
 public class TopDown extends BaseGame {
 	
 	@Override
-	public void create () { setScreen(new GameScreen(this)); }
+	public void create () { setScreen(new LoadingScreen(this)); }
 }
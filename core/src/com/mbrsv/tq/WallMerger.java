@@ -0,0 +1,129 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.utils.FloatArray;
+
+// Load-time cleanup of a level's collision rectangles.
+// Walls on the tile grid (and, if asked, tiles marked solid) are rasterized into solid cells,
+// which are then covered again with few large rectangles: each one grows along a row (or a
+// column) as far as the cells are solid, then sideways while its whole span is solid. Both
+// directions are tried and the smaller set wins. Touching boxes become one, so there are fewer
+// walls to check and no seams between neighbouring boxes for the player to catch on.
+// Walls off the tile grid are kept as they are.
+public class WallMerger {
+
+    // Replaces level.walls with the merged set; returns the wall count before merging
+    public static int merge(LevelData level, boolean solidTiles) {
+        int before = level.getWallCount();
+        int cols = level.tileCountWidth;
+        int rows = level.tileCountHeight;
+        float tileSize = level.tileSize;
+        boolean[] solid = new boolean[cols * rows];
+        FloatArray walls = level.walls;
+        FloatArray onGrid = new FloatArray();
+        FloatArray kept = new FloatArray();
+
+        for (int i = 0; i < walls.size; i += 4) {
+            float x = walls.get(i);
+            float y = walls.get(i + 1);
+            float width = walls.get(i + 2);
+            float height = walls.get(i + 3);
+            int col = (int) (x / tileSize);
+            int row = (int) (y / tileSize);
+            int colCount = (int) (width / tileSize);
+            int rowCount = (int) (height / tileSize);
+            if (col * tileSize != x || row * tileSize != y
+                    || colCount * tileSize != width || rowCount * tileSize != height
+                    || col < 0 || row < 0 || col + colCount > cols || row + rowCount > rows) {
+                kept.addAll(walls, i, 4);
+                continue;
+            }
+            onGrid.addAll(walls, i, 4);
+            for (int r = row; r < row + rowCount; r++) {
+                for (int c = col; c < col + colCount; c++) {
+                    solid[r * cols + c] = true;
+                }
+            }
+        }
+
+        boolean addedTiles = false;
+        if (solidTiles && level.solidTiles.size > 0) {
+            for (LevelData.TileLayer layer : level.tileLayers) {
+                for (int i = 0; i < layer.tiles.length; i++) {
+                    int tile = layer.tiles[i];
+                    if (tile != 0 && !solid[i] && level.solidTiles.contains(LevelData.tileId(tile))) {
+                        solid[i] = true;
+                        addedTiles = true;
+                    }
+                }
+            }
+        }
+
+        FloatArray byRows = cover(solid.clone(), cols, rows, tileSize, true);
+        FloatArray byColumns = cover(solid, cols, rows, tileSize, false);
+        FloatArray merged = byRows.size <= byColumns.size ? byRows : byColumns;
+        //hand-drawn walls may already overlap into fewer boxes than any cover of their union
+        if (!addedTiles && merged.size > onGrid.size) {
+            merged = onGrid;
+        }
+
+        walls.clear();
+        walls.addAll(merged);
+        walls.addAll(kept);
+        return before;
+    }
+
+    // Covers the solid cells with rectangles (x, y, width, height); clears solid on the way
+    private static FloatArray cover(boolean[] solid, int cols, int rows, float tileSize,
+                                    boolean alongRows) {
+        FloatArray result = new FloatArray();
+        int outer = alongRows ? rows : cols;
+        int inner = alongRows ? cols : rows;
+        for (int a = 0; a < outer; a++) {
+            for (int b = 0; b < inner; b++) {
+                int row = alongRows ? a : b;
+                int col = alongRows ? b : a;
+                if (!solid[row * cols + col]) {
+                    continue;
+                }
+                int width = 1;
+                int height = 1;
+                if (alongRows) {
+                    while (col + width < cols && solid[row * cols + col + width]) {
+                        width++;
+                    }
+                    while (row + height < rows && isSolid(solid, cols, col, row + height, width, 1)) {
+                        height++;
+                    }
+                } else {
+                    while (row + height < rows && solid[(row + height) * cols + col]) {
+                        height++;
+                    }
+                    while (col + width < cols && isSolid(solid, cols, col + width, row, 1, height)) {
+                        width++;
+                    }
+                }
+                for (int r = row; r < row + height; r++) {
+                    for (int c = col; c < col + width; c++) {
+                        solid[r * cols + c] = false;
+                    }
+                }
+                result.add(col * tileSize);
+                result.add(row * tileSize);
+                result.add(width * tileSize);
+                result.add(height * tileSize);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isSolid(boolean[] solid, int cols, int col, int row, int width, int height) {
+        for (int r = row; r < row + height; r++) {
+            for (int c = col; c < col + width; c++) {
+                if (!solid[r * cols + c]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
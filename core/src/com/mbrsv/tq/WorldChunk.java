@@ -0,0 +1,51 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+// One square region of a streamed world: the walls, coin spawns and tiles inside it.
+// A ChunkSource builds it on the loader thread; the render thread installs it into the
+// GameWorld (and the tile map) and takes it out again when it is far from the camera.
+public class WorldChunk {
+
+    public final int col;
+    public final int row;
+    //region covered, in tiles
+    public final int tileX;
+    public final int tileY;
+    public final int tileWidth;
+    public final int tileHeight;
+
+    //x, y pairs and their spawn ids (coin index in the whole level)
+    public final FloatArray coins;
+    public final IntArray coinIds;
+    //x, y, width, height quadruples, clipped to the region
+    public final FloatArray walls;
+    //one array per tile layer, tileWidth x tileHeight ids from the bottom row up
+    public final Array<int[]> tiles;
+
+    //wall actors while the chunk is installed; only touched on the render thread
+    final Array<BaseActor> wallActors;
+
+    public WorldChunk(int col, int row, int tileX, int tileY, int tileWidth, int tileHeight) {
+        this.col = col;
+        this.row = row;
+        this.tileX = tileX;
+        this.tileY = tileY;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        coins = new FloatArray();
+        coinIds = new IntArray();
+        walls = new FloatArray();
+        tiles = new Array<int[]>();
+        wallActors = new Array<BaseActor>(false, 8);
+    }
+
+    // Rough memory held while the chunk is resident, for the streamer's budget
+    public int estimateBytes() {
+        //wall actors (a Group, polygon, region and grid entries) dominate
+        return 64 + coins.size * 4 + coinIds.size * 4 + walls.size * 4
+                + tiles.size * tileWidth * tileHeight * 4 + walls.size / 4 * 600;
+    }
+}
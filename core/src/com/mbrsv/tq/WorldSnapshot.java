@@ -0,0 +1,109 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// The gameplay state of a GameWorld in a byte buffer that is reused from one save to the next:
+// mover transforms, velocities and animation state, and the collected coins. Static content
+// (walls, coin spawns, tiles) comes from the level and is not stored, so snapshots are small
+// and restore in place. The same bytes go to disk as save games.
+public class WorldSnapshot {
+
+    public static final int MAGIC = 0x54515353;
+    public static final int VERSION = 1;
+
+    private ByteBuffer buffer;
+
+    public WorldSnapshot() {
+        buffer = ByteBuffer.allocate(1024);
+        buffer.limit(0);
+    }
+
+    // For GameWorld.save(): an empty buffer with room for at least this many bytes
+    ByteBuffer beginWrite(int bytes) {
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        return buffer;
+    }
+
+    void endWrite() {
+        buffer.flip();
+    }
+
+    // For GameWorld.restore(): the saved bytes from the start
+    ByteBuffer beginRead() {
+        if (isEmpty()) {
+            throw new GdxRuntimeException("Empty world snapshot");
+        }
+        buffer.rewind();
+        if (buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException("Not a world snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Unsupported world snapshot version " + version);
+        }
+        return buffer;
+    }
+
+    public boolean isEmpty() {
+        return buffer.limit() == 0;
+    }
+
+    public int size() {
+        return buffer.limit();
+    }
+
+    public void clear() {
+        buffer.clear();
+        buffer.limit(0);
+    }
+
+    public void copy(WorldSnapshot other) {
+        if (buffer.capacity() < other.buffer.limit()) {
+            buffer = ByteBuffer.allocate(other.buffer.capacity());
+        }
+        buffer.clear();
+        buffer.put(other.buffer.array(), 0, other.buffer.limit());
+        buffer.flip();
+    }
+
+    // For files that embed a snapshot (InputLog): the size, then the bytes
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(buffer.limit());
+        out.write(buffer.array(), 0, buffer.limit());
+    }
+
+    void read(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size);
+        }
+        buffer.clear();
+        in.readFully(buffer.array(), 0, size);
+        buffer.limit(size);
+    }
+
+    public void write(FileHandle file) {
+        file.writeBytes(buffer.array(), 0, buffer.limit(), false);
+    }
+
+    public void read(FileHandle file) {
+        byte[] bytes = file.readBytes();
+        if (buffer.capacity() < bytes.length) {
+            buffer = ByteBuffer.allocate(bytes.length);
+        }
+        buffer.clear();
+        buffer.put(bytes);
+        buffer.flip();
+    }
+}
@@ -0,0 +1,251 @@
+package com.mbrsv.tq;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.IntSet;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Keeps the chunks of a world resident around the camera. Chunks within loadMargin chunks of
+// the view are built on a loader thread and installed a few per update on the render thread;
+// chunks further than unloadMargin away are taken out again. The gap between the two margins
+// keeps a player walking along a chunk border from loading and unloading the same chunks.
+// Past the memory budget, the farthest chunks outside the load range go first.
+// Collected coins live in the GameWorld, so a chunk reloaded from its source comes back as it was left.
+public class WorldStreamer implements Disposable {
+
+    // Told about chunks as they enter and leave the world, on the render thread
+    public interface ChunkListener {
+        void chunkLoaded(WorldChunk chunk);
+        void chunkUnloaded(WorldChunk chunk);
+    }
+
+    private final GameWorld world;
+    private final ChunkSource source;
+    private final int chunkTiles;
+    private final float chunkSize;
+    private final int chunkCols;
+    private final int chunkRows;
+
+    private final IntMap<WorldChunk> resident;
+    //requested from the loader and not installed yet; only touched on the render thread
+    private final IntSet pending;
+    //built by the loader, waiting for the render thread
+    private final ConcurrentLinkedQueue<WorldChunk> ready;
+    private final ExecutorService loader;
+    private volatile Throwable failure;
+    private final IntArray unloadKeys;
+    private ChunkListener listener;
+
+    private int loadMargin;
+    private int unloadMargin;
+    private int maxInstallsPerUpdate;
+    private int maxBytes;
+    private int residentBytes;
+
+    //chunk range wanted by the last update
+    private int minCol, minRow, maxCol, maxRow;
+
+    private class LoadTask implements Runnable {
+        final int col;
+        final int row;
+
+        LoadTask(int col, int row) {
+            this.col = col;
+            this.row = row;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ready.add(source.load(col, row, chunkTiles));
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+    }
+
+    public WorldStreamer(GameWorld world, ChunkSource source, int chunkTiles) {
+        this.world = world;
+        this.source = source;
+        this.chunkTiles = chunkTiles;
+        chunkSize = chunkTiles * source.getTileSize();
+        chunkCols = (source.getTileCountWidth() + chunkTiles - 1) / chunkTiles;
+        chunkRows = (source.getTileCountHeight() + chunkTiles - 1) / chunkTiles;
+
+        resident = new IntMap<WorldChunk>();
+        pending = new IntSet();
+        ready = new ConcurrentLinkedQueue<WorldChunk>();
+        loader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "chunk-loader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        unloadKeys = new IntArray();
+        listener = null;
+
+        loadMargin = 1;
+        unloadMargin = 2;
+        maxInstallsPerUpdate = 2;
+        maxBytes = 4 << 20;
+        residentBytes = 0;
+    }
+
+    public void setChunkListener(ChunkListener listener) { this.listener = listener; }
+
+    // Chunks are loaded within loadMargin chunks of the view and unloaded beyond unloadMargin
+    public void setMargins(int load, int unload) {
+        loadMargin = Math.max(0, load);
+        unloadMargin = Math.max(loadMargin + 1, unload);
+    }
+
+    public void setMemoryBudget(int bytes) { maxBytes = bytes; }
+    public void setMaxInstallsPerUpdate(int count) { maxInstallsPerUpdate = Math.max(1, count); }
+
+    // Loads everything in the view and its load margin right away, e.g. before the first frame
+    public void preload(Rectangle view) {
+        setRange(view);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                if (!resident.containsKey(key(col, row))) {
+                    install(source.load(col, row, chunkTiles));
+                }
+            }
+        }
+    }
+
+    // Call once per update, before the world updates. Chunks under the focus area (the player's
+    // bounds) plus a tile around it are loaded on the spot if missing, so what the player collides
+    // with never depends on how fast the loader is, and replays stay deterministic.
+    public void update(Rectangle view, Rectangle focus) {
+        if (failure != null) {
+            throw new GdxRuntimeException("Chunk loading failed", failure);
+        }
+        setRange(view);
+
+        float margin = source.getTileSize();
+        int focusMinCol = clampCol(MathUtils.floor((focus.x - margin) / chunkSize));
+        int focusMinRow = clampRow(MathUtils.floor((focus.y - margin) / chunkSize));
+        int focusMaxCol = clampCol(MathUtils.floor((focus.x + focus.width + margin) / chunkSize));
+        int focusMaxRow = clampRow(MathUtils.floor((focus.y + focus.height + margin) / chunkSize));
+        for (int row = focusMinRow; row <= focusMaxRow; row++) {
+            for (int col = focusMinCol; col <= focusMaxCol; col++) {
+                if (!resident.containsKey(key(col, row))) {
+                    install(source.load(col, row, chunkTiles));
+                }
+            }
+        }
+        int focusCol = (focusMinCol + focusMaxCol) / 2;
+        int focusRow = (focusMinRow + focusMaxRow) / 2;
+
+        //install a few finished chunks per update, so a burst of loads does not stall a frame
+        for (int i = 0; i < maxInstallsPerUpdate; i++) {
+            WorldChunk chunk = ready.poll();
+            if (chunk == null) {
+                break;
+            }
+            int key = key(chunk.col, chunk.row);
+            pending.remove(key);
+            if (!resident.containsKey(key) && !outside(chunk.col, chunk.row, unloadMargin - loadMargin)) {
+                install(chunk);
+            }
+        }
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int key = key(col, row);
+                if (!resident.containsKey(key) && !pending.contains(key)) {
+                    pending.add(key);
+                    loader.execute(new LoadTask(col, row));
+                }
+            }
+        }
+
+        //the unload range is the load range widened by the difference in margins
+        unloadKeys.clear();
+        for (IntMap.Entry<WorldChunk> entry : resident.entries()) {
+            if (outside(entry.value.col, entry.value.row, unloadMargin - loadMargin)) {
+                unloadKeys.add(entry.key);
+            }
+        }
+        for (int i = 0; i < unloadKeys.size; i++) {
+            uninstall(resident.get(unloadKeys.get(i)));
+        }
+
+        while (residentBytes > maxBytes) {
+            WorldChunk farthest = null;
+            int farthestDistance = -1;
+            for (IntMap.Entry<WorldChunk> entry : resident.entries()) {
+                WorldChunk chunk = entry.value;
+                if (!outside(chunk.col, chunk.row, 0)) {
+                    continue;
+                }
+                int distance = Math.abs(chunk.col - focusCol) + Math.abs(chunk.row - focusRow);
+                if (distance > farthestDistance) {
+                    farthestDistance = distance;
+                    farthest = chunk;
+                }
+            }
+            if (farthest == null) {
+                break; //everything left is wanted
+            }
+            uninstall(farthest);
+        }
+    }
+
+    private void setRange(Rectangle view) {
+        minCol = clampCol(MathUtils.floor(view.x / chunkSize) - loadMargin);
+        minRow = clampRow(MathUtils.floor(view.y / chunkSize) - loadMargin);
+        maxCol = clampCol(MathUtils.floor((view.x + view.width) / chunkSize) + loadMargin);
+        maxRow = clampRow(MathUtils.floor((view.y + view.height) / chunkSize) + loadMargin);
+    }
+
+    // Whether the chunk lies outside the load range widened by extra chunks
+    private boolean outside(int col, int row, int extra) {
+        return col < minCol - extra || col > maxCol + extra || row < minRow - extra || row > maxRow + extra;
+    }
+
+    private void install(WorldChunk chunk) {
+        resident.put(key(chunk.col, chunk.row), chunk);
+        residentBytes += chunk.estimateBytes();
+        world.addChunk(chunk);
+        if (listener != null) {
+            listener.chunkLoaded(chunk);
+        }
+    }
+
+    private void uninstall(WorldChunk chunk) {
+        resident.remove(key(chunk.col, chunk.row));
+        residentBytes -= chunk.estimateBytes();
+        world.removeChunk(chunk);
+        if (listener != null) {
+            listener.chunkUnloaded(chunk);
+        }
+    }
+
+    public int getResidentChunks() { return resident.size; }
+    public int getPendingChunks() { return pending.size; }
+    public int getResidentBytes() { return residentBytes; }
+
+    private int key(int col, int row) { return row * chunkCols + col; }
+    private int clampCol(int col) { return MathUtils.clamp(col, 0, chunkCols - 1); }
+    private int clampRow(int row) { return MathUtils.clamp(row, 0, chunkRows - 1); }
+
+    // Stops the loader; chunks still being built are dropped
+    @Override
+    public void dispose() {
+        loader.shutdownNow();
+        ready.clear();
+        pending.clear();
+    }
+}
@@ -0,0 +1,36 @@
+package com.mbrsv.tq.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.mbrsv.tq.LevelData;
+import com.mbrsv.tq.WallMerger;
+
+import java.io.File;
+
+// Compiles every TMX map in the given directories into a binary .lvl file next to it,
+// with its walls merged
+// (run through the desktop:compileLevels task)
+public class LevelCompiler {
+	public static void main (String[] arg) {
+		for (String directory : arg) {
+			File[] files = new File(directory).listFiles();
+			if (files == null) {
+				System.err.println("Not a directory: " + directory);
+				continue;
+			}
+			for (File file : files) {
+				if (!file.getName().endsWith(".tmx")) {
+					continue;
+				}
+				FileHandle tmx = new FileHandle(file);
+				FileHandle lvl = tmx.sibling(tmx.nameWithoutExtension() + ".lvl");
+				LevelData level = LevelData.fromTmx(tmx);
+				int authoredWalls = WallMerger.merge(level, true);
+				level.write(lvl);
+				System.out.println(tmx.name() + " -> " + lvl.name() + ": " + tmx.length() + " -> "
+						+ lvl.length() + " bytes, " + level.tileLayers.size + " tile layers, "
+						+ authoredWalls + " -> " + level.getWallCount() + " walls, "
+						+ level.getCoinCount() + " coins");
+			}
+		}
+	}
+}